@@ -44,11 +44,14 @@ final class DatagramChannelFutureListener<T> implements ChannelFutureListener {
   public void operationComplete(final ChannelFuture future) throws Exception {
     Channel ch = future.channel();
     if (context.isOnCorrectWorker(ch.eventLoop())) {
+      boolean timed = DefaultContext.executeStart(context);
       try {
         vertx.setContext(context);
         notifyHandler(future);
       } catch (Throwable t) {
         context.reportException(t);
+      } finally {
+        DefaultContext.executeEnd(timed);
       }
     } else {
       context.execute(new Runnable() {
@@ -25,9 +25,11 @@ import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.datagram.DatagramSocket;
+import org.vertx.java.core.impl.DefaultContext;
 import org.vertx.java.core.impl.DefaultFutureResult;
 import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.core.net.impl.ConnectionBase;
+import org.vertx.java.core.net.impl.Transport;
 
 import java.net.*;
 
@@ -43,7 +45,7 @@ public class DefaultDatagramSocket extends ConnectionBase
   public DefaultDatagramSocket(VertxInternal vertx, org.vertx.java.core.datagram.InternetProtocolFamily family) {
     super(vertx, createChannel(family), vertx.getOrCreateContext());
     channel().config().setOption(ChannelOption.DATAGRAM_CHANNEL_ACTIVE_ON_REGISTRATION, true);
-    context.getEventLoop().register(channel);
+    Transport.nioEventLoop(vertx, context).register(channel);
     channel.pipeline().addLast("handler", new DatagramServerHandler(this.vertx, this));
     channel().config().setMaxMessagesPerRead(1);
   }
@@ -396,11 +398,14 @@ public class DefaultDatagramSocket extends ConnectionBase
 
   private void notifyException(final Handler<AsyncResult<DatagramSocket>> handler, final Throwable cause) {
     if (context.isOnCorrectWorker(channel().eventLoop())) {
+      boolean timed = DefaultContext.executeStart(context);
       try {
         vertx.setContext(context);
         handler.handle(new DefaultFutureResult<DatagramSocket>(cause));
       } catch (Throwable t) {
         context.reportException(t);
+      } finally {
+        DefaultContext.executeEnd(timed);
       }
     } else {
       context.execute(new Runnable() {
@@ -31,6 +31,7 @@ import org.vertx.java.core.impl.DefaultContext;
 import org.vertx.java.core.impl.DefaultFutureResult;
 import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.core.net.impl.PartialPooledByteBufAllocator;
+import org.vertx.java.core.net.impl.Transport;
 
 import java.net.*;
 import java.util.*;
@@ -57,7 +58,7 @@ public final class DefaultDnsClient implements DnsClient {
     actualCtx = vertx.getOrCreateContext();
     this.vertx = vertx;
     bootstrap = new Bootstrap();
-    bootstrap.group(actualCtx.getEventLoop());
+    bootstrap.group(Transport.nioEventLoop(vertx, actualCtx));
     bootstrap.channel(NioDatagramChannel.class);
     bootstrap.option(ChannelOption.ALLOCATOR, PartialPooledByteBufAllocator.INSTANCE);
     bootstrap.handler(new ChannelInitializer<DatagramChannel>() {
@@ -276,6 +277,7 @@ public final class DefaultDnsClient implements DnsClient {
       return;
     }
     if (actualCtx.isOnCorrectWorker(loop)) {
+      boolean timed = DefaultContext.executeStart(actualCtx);
       try {
         vertx.setContext(actualCtx);
         if (result instanceof Throwable) {
@@ -285,6 +287,8 @@ public final class DefaultDnsClient implements DnsClient {
         }
       } catch (Throwable t) {
         actualCtx.reportException(t);
+      } finally {
+        DefaultContext.executeEnd(timed);
       }
     } else {
       actualCtx.execute(new Runnable() {
@@ -31,6 +31,13 @@ import org.vertx.java.core.json.JsonObject;
  * Handlers are registered against an address. There can be multiple handlers registered against each address, and a particular handler can
  * be registered against multiple addresses. The event bus will route a sent message to all handlers which are
  * registered against that address.<p>
+ * Handlers can also be registered against wildcard addresses. Addresses are split into words on {@code '.'}, and in a
+ * wildcard address {@code *} matches exactly one word while {@code #} matches zero or more words, e.g. a handler
+ * registered at {@code prices.*} receives messages for {@code prices.eu} and one at {@code prices.#} also receives
+ * messages for {@code prices} and {@code prices.eu.gbp}. A sent message goes to a handler registered at the exact
+ * address if there is one, otherwise to a handler of the most specific matching wildcard address, where words are
+ * compared from the left and a literal word is more specific than {@code *}, which is more specific than {@code #}.
+ * Wildcard handlers only match messages which reach their node, they aren't propagated across the cluster.<p>
  * For point to point messaging, messages can be sent to an address using one of the {@link #send} methods.
  * The messages will be delivered to a single handler, if one is registered on that address. If more than one
  * handler is registered on the same address, Vert.x will choose one and deliver the message to that. Vert.x will
@@ -76,7 +83,11 @@ public interface EventBus {
   EventBus send(String address, Object message, Handler<Message> replyHandler);
 
   /**
-   * Send an object as a message
+   * Send an object as a message<p>
+   * This and the other sends with a reply timeout give the message a deadline, when the timeout expires. If the
+   * recipient only gets to it after that it's dropped rather than handled, as nobody is waiting for the reply any
+   * more. Replies carry the same deadline, and waiting for a reply to a reply is limited to what's left of it.
+   * The deadline is a wall clock time, so the clocks of the nodes should be in step.
    * @param address The address to send it to
    * @param message The message
    * @param timeout - Timeout in ms. If no reply received within the timeout then the reply handler will be unregistered
@@ -84,6 +95,25 @@ public interface EventBus {
    */
   <T> EventBus sendWithTimeout(String address, Object message, long timeout, Handler<AsyncResult<Message<T>>> replyHandler);
 
+  /**
+   * Send a message to the handler the routing key maps to, so messages with the same key keep going to the same
+   * handler, on this node or another, while it's registered. Registering or unregistering handlers, or nodes
+   * joining and leaving, only moves a small share of the keys to other handlers.
+   * @param address The address to send it to
+   * @param routingKey The key, or null to choose a handler round robin as {@link #send(String, Object)} does
+   * @param message The message
+   */
+  EventBus sendWithKey(String address, String routingKey, Object message);
+
+  /**
+   * Send a message to the handler the routing key maps to
+   * @param address The address to send it to
+   * @param routingKey The key, or null to choose a handler round robin
+   * @param message The message
+   * @param replyHandler Reply handler will be called when any reply from the recipient is received
+   */
+  <T> EventBus sendWithKey(String address, String routingKey, Object message, Handler<Message<T>> replyHandler);
+
   /**
    * Send a JSON object as a message
    * @param address The address to send it to
@@ -399,6 +429,14 @@ public interface EventBus {
    */
   EventBus send(String address, Byte message);
 
+  /**
+   * Send the body of a received message on to another address. A body which arrived from another node and hasn't
+   * been read yet is passed on in its wire form, without being decoded and encoded again.
+   * @param address The address to send it to
+   * @param message The message received by a handler
+   */
+  EventBus forward(String address, Message<?> message);
+
   /**
    * Publish a message
    * @param address The address to publish it to
@@ -515,22 +553,60 @@ public interface EventBus {
   EventBus unregisterHandler(String address, Handler<? extends Message> handler);
 
   /**
-   * Registers a handler against the specified address
+   * Registers a handler against the specified address.<p>
+   * If the address is a wildcard address the handler isn't propagated to the other nodes of a clustered event bus.
+   * It receives messages sent or published on this node, but from other nodes only messages published to an address
+   * which also has a handler registered at exactly that address on this node. Messages sent from other nodes to an
+   * address which only matches wildcard handlers aren't delivered.
    * @param address The address to register it at
    * @param handler The handler
    * @param resultHandler Optional completion handler. If specified, when the register has been
-   * propagated to all nodes of the event bus, the handler will be called.
+   * propagated to all nodes of the event bus, the handler will be called. For a wildcard address it's called
+   * straight away.
    */
   EventBus registerHandler(String address, Handler<? extends Message> handler,
                            Handler<AsyncResult<Void>> resultHandler);
 
   /**
-   * Registers a handler against the specified address
+   * Registers a handler against the specified address. Handlers at wildcard addresses aren't propagated to the
+   * other nodes of a clustered event bus, see {@link #registerHandler(String, Handler, Handler)}.
    * @param address The address to register it at
    * @param handler The handler
    */
   EventBus registerHandler(String address, Handler<? extends Message> handler);
 
+  /**
+   * Registers a handler against the specified address, bounding the number of messages which can be waiting to be
+   * handled by it. When a message arrives and the handler already has {@code maxPending} messages waiting, the
+   * {@code policy} decides what is dropped. Handlers at wildcard addresses aren't propagated to the other nodes of
+   * a clustered event bus, see {@link #registerHandler(String, Handler, Handler)}.
+   * @param address The address to register it at
+   * @param handler The handler
+   * @param maxPending The maximum number of messages waiting to be handled
+   * @param policy What to do with messages that arrive when the handler is full
+   * @param resultHandler Optional completion handler. If specified, when the register has been
+   * propagated to all nodes of the event bus, the handler will be called.
+   */
+  <T> EventBus registerHandler(String address, Handler<Message<T>> handler, int maxPending, OverflowPolicy policy,
+                               Handler<AsyncResult<Void>> resultHandler);
+
+  /**
+   * Registers a handler against the specified address, bounding the number of messages which can be waiting to be
+   * handled by it.
+   * @param address The address to register it at
+   * @param handler The handler
+   * @param maxPending The maximum number of messages waiting to be handled
+   * @param policy What to do with messages that arrive when the handler is full
+   */
+  <T> EventBus registerHandler(String address, Handler<Message<T>> handler, int maxPending, OverflowPolicy policy);
+
+  /**
+   * Returns the number of messages received at the specified address on this node that are waiting to be handled
+   * by handlers registered with a maximum number of pending messages
+   * @param address The address
+   */
+  int getPendingMessages(String address);
+
   /**
    * Registers a local handler against the specified address. The handler info won't
    * be propagated across the cluster
@@ -539,6 +615,71 @@ public interface EventBus {
    */
   EventBus registerLocalHandler(String address, Handler<? extends Message> handler);
 
+  /**
+   * Registers a handler which is called with a {@link EventBusReadStream} each time a stream is opened to the
+   * specified address with {@link #openStream}. Each stream is delivered to just one of the handlers registered at
+   * the address, chosen in the same way as for a point to point send.
+   * @param address The address to register it at
+   * @param handler The handler
+   */
+  EventBus registerStreamHandler(String address, Handler<EventBusReadStream> handler);
+
+  /**
+   * Unregisters a stream handler. Streams which have already been opened are not affected.
+   * @param address The address the handler was registered at
+   * @param handler The handler
+   */
+  EventBus unregisterStreamHandler(String address, Handler<EventBusReadStream> handler);
+
+  /**
+   * Opens a stream to a stream handler registered at the specified address. Data written to the stream is sent
+   * in chunks of at most {@code vertx.eventbus.stream.chunksize} bytes (64KB by default), so a large payload never
+   * has to be held in a single message. The write queue max size is in bytes (1MB by default). The write queue is
+   * full while at least that many bytes have been written but not yet handled by the receiver, and the drain handler
+   * is called once that drops to half of it, so the stream can be used with a
+   * {@link org.vertx.java.core.streams.Pump} to apply back pressure.
+   * @param address The address
+   * @param handler Called with the stream once the receiver has accepted it, or with a failure if there is no
+   * stream handler at the address or it doesn't answer within the default reply timeout
+   */
+  EventBus openStream(String address, Handler<AsyncResult<EventBusWriteStream>> handler);
+
+  /**
+   * Registers a codec so that instances of the type can be sent and published with the {@code Object} variants of
+   * {@link #send} and {@link #publish}. Registering a codec for a type which already has one replaces it.
+   * @param type The exact class of the objects the codec handles
+   * @param codec The codec
+   * @throws IllegalStateException if a codec for another type is already registered with the same type id
+   */
+  <T> EventBus registerCodec(Class<T> type, MessageCodec<T> codec);
+
+  /**
+   * Unregisters the codec for the specified type, if any
+   * @param type The type the codec was registered for
+   */
+  EventBus unregisterCodec(Class<?> type);
+
+  /**
+   * Sets the size, in bytes, above which messages sent to other nodes of a cluster are compressed. Frames which
+   * don't get any smaller are sent as they are. A negative value, the default unless the
+   * {@code vertx.cluster.compression.threshold} system property is set, turns compression off. Compressed frames
+   * from other nodes can always be read.
+   * @param bytes The threshold
+   */
+  EventBus setCompressionThreshold(int bytes);
+
+  /**
+   * Return the size above which messages sent to other nodes are compressed, or a negative value if they aren't
+   */
+  int getCompressionThreshold();
+
+  /**
+   * Sets the compressor used for frames sent to and received from other nodes. The default uses deflate at its
+   * fastest level. All the nodes in a cluster must use the same compressor.
+   * @param compressor The compressor, or null to use the default again
+   */
+  EventBus setCompressor(MessageCompressor compressor);
+
   /**
    * Sets a default timeout, in ms, for replies. If a messages is sent specify a reply handler
    * but without specifying a timeout, then the reply handler is timed out, i.e. it is automatically unregistered
@@ -552,5 +693,60 @@ public interface EventBus {
    * Return the value for default send timeout
    */
   long getDefaultReplyTimeout();
-}
 
+  /**
+   * Sets whether messages sent point to point go to a handler registered on the event loop they are received on,
+   * when there is one, instead of strictly round robin across all the handlers for the address. Handlers on other
+   * event loops are still chosen round robin when there isn't a local one.
+   * Applies to addresses without a setting of their own. The initial value is given by the
+   * {@code vertx.eventbus.localityaware} system property.
+   * @param localityAware
+   */
+  EventBus setLocalityAware(boolean localityAware);
+
+  /**
+   * Return whether handler selection prefers the current event loop for addresses without a setting of their own
+   */
+  boolean isLocalityAware();
+
+  /**
+   * Sets whether messages sent point to point to the specified address prefer a handler on the current event loop,
+   * overriding the default set with {@link #setLocalityAware(boolean)}
+   * @param address The address
+   * @param localityAware The setting for the address, or null to use the default again
+   */
+  EventBus setLocalityAware(String address, Boolean localityAware);
+
+  /**
+   * Sets whether messages sent point to point go to the handler with the fewest messages delivered to it that it
+   * hasn't finished handling yet, instead of round robin. This keeps messages away from handlers which have fallen
+   * behind, such as workers blocked on I/O. Handlers with the same number are taken in turn.
+   * Applies to addresses without a setting of their own and takes precedence over locality awareness. The initial
+   * value is given by the {@code vertx.eventbus.leastoutstanding} system property.
+   * @param leastOutstanding
+   */
+  EventBus setLeastOutstanding(boolean leastOutstanding);
+
+  /**
+   * Return whether handler selection prefers the handler with the fewest outstanding messages for addresses without a
+   * setting of their own
+   */
+  boolean isLeastOutstanding();
+
+  /**
+   * Sets whether messages sent point to point to the specified address go to the handler with the fewest outstanding
+   * messages, overriding the default set with {@link #setLeastOutstanding(boolean)}
+   * @param address The address
+   * @param leastOutstanding The setting for the address, or null to use the default again
+   */
+  EventBus setLeastOutstanding(String address, Boolean leastOutstanding);
+
+  /**
+   * Sets the priority of messages sent and published to the specified address, which decides the connection they
+   * go to other nodes on. Only has an effect when the {@code vertx.cluster.prioritylanes} system property is set.
+   * Replies always have {@link MessagePriority#HIGH} priority.
+   * @param address The address
+   * @param priority The priority, or null to use {@link MessagePriority#NORMAL} again
+   */
+  EventBus setPriority(String address, MessagePriority priority);
+}
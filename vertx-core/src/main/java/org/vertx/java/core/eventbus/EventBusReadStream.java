@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus;
+
+import org.vertx.java.core.streams.ReadStream;
+
+/**
+ * The receiving end of a stream opened with {@link EventBus#openStream}.<p>
+ * The data arrives in the chunks it was sent in. The sender can only have a limited amount of data which hasn't been
+ * handled yet, so pausing this stream will eventually cause the sender's write queue to fill.<p>
+ * A stream which isn't paused and receives nothing for {@code vertx.eventbus.stream.idletimeout} ms (5 minutes by
+ * default, zero for no limit) is assumed to have lost its sender. It's closed and the exception handler is called
+ * with a {@link ReplyException} of type {@link ReplyFailure#TIMEOUT}.<p>
+ * If the sender ends the stream but some of its chunks never arrived, the exception handler is called instead of
+ * the end handler.<p>
+ * Instances of this class are not thread-safe.<p>
+ */
+public interface EventBusReadStream extends ReadStream<EventBusReadStream> {
+
+  /**
+   * The address the stream was opened to
+   */
+  String address();
+}
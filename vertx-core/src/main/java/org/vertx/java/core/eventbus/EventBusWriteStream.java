@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus;
+
+import org.vertx.java.core.streams.WriteStream;
+
+/**
+ * The sending end of a stream opened with {@link EventBus#openStream}.<p>
+ * Data written is split into chunks, each sent as a separate message so other messages aren't held up behind a large
+ * write. Data counts towards the write queue until the receiver has handled it, so the write queue will fill up if the
+ * receiver is slow or paused. Use a {@link org.vertx.java.core.streams.Pump} or check {@link #writeQueueFull} to keep
+ * memory use constant.<p>
+ * If the receiver goes away, a chunk isn't handled within the default reply timeout of the event bus, or the
+ * receiver finds at the end that chunks were lost, the exception handler is called.<p>
+ * Instances of this class are not thread-safe.<p>
+ */
+public interface EventBusWriteStream extends WriteStream<EventBusWriteStream> {
+
+  /**
+   * The address the stream was opened to
+   */
+  String address();
+
+  /**
+   * Sets the priority the data is sent to the receiver's node with, see {@link EventBus#setPriority}. The default is
+   * {@link MessagePriority#BULK}, so the chunks don't hold up other messages. Order is only kept on one lane, so it
+   * can only be set before anything has been written
+   * @param priority The priority, or null for the default
+   * @throws IllegalStateException if data has already been written
+   */
+  EventBusWriteStream setPriority(MessagePriority priority);
+
+  /**
+   * Ends the stream. The receiver's end handler will be called once it has handled all the data written before.
+   */
+  void end();
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package org.vertx.java.core.eventbus;
+
+import org.vertx.java.core.buffer.Buffer;
+
+/**
+ * A codec lets instances of a user type be sent over the event bus directly, without first converting them to one
+ * of the built-in message types such as {@link org.vertx.java.core.json.JsonObject}.<p>
+ * Codecs are registered against a type with {@link EventBus#registerCodec}. When the event bus is clustered the
+ * same codec, with the same {@link #typeId()}, must be registered on every node that sends or receives the type.<p>
+ * Instances of MessageCodec must be thread-safe.
+ */
+public interface MessageCodec<T> {
+
+  /**
+   * @return the id which identifies this codec on the wire. It must be unique amongst the codecs registered on an
+   * event bus
+   */
+  int typeId();
+
+  /**
+   * Encode the object by appending its wire form to the buffer
+   * @param object The object to encode, never null
+   * @param buffer The buffer to append to
+   */
+  void encode(T object, Buffer buffer);
+
+  /**
+   * Decode an object previously written by {@link #encode}. The buffer is only valid for the duration of the call,
+   * so the object mustn't keep a reference to it.
+   * @param buffer The buffer containing the encoded object
+   * @param pos The position in the buffer where the encoded object starts
+   * @param length The number of bytes written by {@link #encode}
+   * @return the decoded object
+   */
+  T decode(Buffer buffer, int pos, int length);
+
+  /**
+   * Called when a message is delivered to a handler in the same vert.x instance. Each handler must not be able to
+   * see changes made by another, so mutable objects should be copied. Immutable objects can be returned as is.
+   * @param object The object being delivered, never null
+   * @return the object to hand to the handler
+   */
+  T transfer(T object);
+}
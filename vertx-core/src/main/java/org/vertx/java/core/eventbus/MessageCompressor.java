@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus;
+
+/**
+ * Compresses the frames sent between the nodes of a clustered event bus. Frames are only compressed when they're
+ * larger than the threshold set with {@link EventBus#setCompressionThreshold(int)}, and each compressed frame is
+ * flagged so it can be read whether or not the receiving node compresses its own frames. All the nodes in a cluster
+ * must use the same compressor.<p>
+ * Implementations are called concurrently from many threads, and shouldn't allocate any memory per call - any state
+ * such as a native compressor should be pooled, e.g. per thread.<p>
+ */
+public interface MessageCompressor {
+
+  /**
+   * Compresses {@code len} bytes of {@code src} from {@code srcOff} into {@code dst}
+   * @return The number of bytes written to {@code dst}, or -1 if the compressed data doesn't fit in {@code dstLen}
+   * bytes, in which case the frame is sent uncompressed
+   */
+  int compress(byte[] src, int srcOff, int len, byte[] dst, int dstOff, int dstLen);
+
+  /**
+   * Decompresses {@code len} bytes of {@code src} from {@code srcOff} into {@code dst}, which has room for exactly
+   * the {@code dstLen} bytes that were compressed
+   * @throws IllegalStateException if the data is corrupt
+   */
+  void decompress(byte[] src, int srcOff, int len, byte[] dst, int dstOff, int dstLen);
+}
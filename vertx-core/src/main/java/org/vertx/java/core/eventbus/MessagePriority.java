@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus;
+
+/**
+ * Which connection messages to an address are sent to other nodes on, when the
+ * {@code vertx.cluster.prioritylanes} system property is set. Each lane is a separate connection to each node, so
+ * messages on one lane never wait behind messages on another. Order is only kept between messages on the same lane.
+ *
+ * @see EventBus#setPriority(String, MessagePriority)
+ */
+public enum MessagePriority {
+
+  /**
+   * Shares the lane used for replies and pings
+   */
+  HIGH,
+
+  /**
+   * The default for messages which aren't replies
+   */
+  NORMAL,
+
+  /**
+   * For addresses that carry large messages, so they don't hold up anything else. The data of event bus streams is
+   * sent with this priority unless another is set
+   */
+  BULK
+}
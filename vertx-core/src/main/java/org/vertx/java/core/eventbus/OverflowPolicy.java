@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus;
+
+/**
+ * What the event bus does with a message for a handler which already has its maximum number of pending messages.
+ *
+ * @see EventBus#registerHandler(String, org.vertx.java.core.Handler, int, OverflowPolicy)
+ */
+public enum OverflowPolicy {
+
+  /**
+   * The message isn't delivered. If the sender is waiting for a reply it receives a failure of type
+   * {@link ReplyFailure#OVERLOADED}
+   */
+  REJECT,
+
+  /**
+   * The oldest pending message is discarded to make room for the new one
+   */
+  DROP_OLDEST,
+
+  /**
+   * The new message is silently discarded
+   */
+  DROP_NEWEST
+}
@@ -17,13 +17,14 @@
 package org.vertx.java.core.eventbus;
 
 public enum ReplyFailure {
-  TIMEOUT, NO_HANDLERS, RECIPIENT_FAILURE;
+  TIMEOUT, NO_HANDLERS, RECIPIENT_FAILURE, OVERLOADED;
 
   public static ReplyFailure fromInt(int i) {
     switch (i) {
       case 0: return TIMEOUT;
       case 1: return NO_HANDLERS;
       case 2: return RECIPIENT_FAILURE;
+      case 3: return OVERLOADED;
       default: throw new IllegalStateException("Invalid index " + i);
     }
   }
@@ -33,6 +34,7 @@ public enum ReplyFailure {
       case TIMEOUT: return 0;
       case NO_HANDLERS: return 1;
       case RECIPIENT_FAILURE: return 2;
+      case OVERLOADED: return 3;
       default: throw new IllegalStateException("How did we get here?");
     }
   }
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of wildcard addresses. Addresses are split into words on {@code '.'}. In a pattern {@code *} matches exactly
+ * one word and {@code #} matches zero or more words, so {@code prices.*} matches {@code prices.eu} and
+ * {@code prices.#} matches {@code prices}, {@code prices.eu} and {@code prices.eu.gbp}.<p>
+ * Lookups don't lock. Updates are serialized, they're much rarer.
+ */
+class AddressTrie<V> {
+
+  private static final String ONE = "*";
+  private static final String ANY = "#";
+
+  private final Node<V> root = new Node<>();
+
+  static boolean isWildcard(String address) {
+    if (address.indexOf('*') == -1 && address.indexOf('#') == -1) {
+      return false;
+    }
+    for (String word: split(address)) {
+      if (word.equals(ONE) || word.equals(ANY)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  boolean isEmpty() {
+    return root.children.isEmpty();
+  }
+
+  V get(String pattern) {
+    Node<V> node = root;
+    for (String word: split(pattern)) {
+      node = node.children.get(word);
+      if (node == null) {
+        return null;
+      }
+    }
+    return node.value;
+  }
+
+  synchronized V putIfAbsent(String pattern, V value) {
+    Node<V> node = root;
+    for (String word: split(pattern)) {
+      Node<V> child = node.children.get(word);
+      if (child == null) {
+        child = new Node<>();
+        node.children.put(word, child);
+      }
+      node = child;
+    }
+    if (node.value != null) {
+      return node.value;
+    }
+    node.value = value;
+    return null;
+  }
+
+  synchronized boolean remove(String pattern, V value) {
+    String[] words = split(pattern);
+    List<Node<V>> path = new ArrayList<>(words.length + 1);
+    Node<V> node = root;
+    path.add(node);
+    for (String word: words) {
+      node = node.children.get(word);
+      if (node == null) {
+        return false;
+      }
+      path.add(node);
+    }
+    if (node.value != value) {
+      return false;
+    }
+    node.value = null;
+    // Prune the nodes which no longer lead anywhere
+    for (int i = words.length; i > 0; i--) {
+      Node<V> n = path.get(i);
+      if (n.value != null || !n.children.isEmpty()) {
+        break;
+      }
+      path.get(i - 1).children.remove(words[i - 1]);
+    }
+    return true;
+  }
+
+  /**
+   * @return the values of all the patterns matching the address, or null if there aren't any. Patterns are ordered
+   * by comparing them word by word from the left, with a literal word before {@code *} before {@code #}
+   */
+  List<V> match(String address) {
+    return match(root, split(address), 0, null);
+  }
+
+  private List<V> match(Node<V> node, String[] words, int pos, List<V> result) {
+    if (pos == words.length) {
+      result = add(node.value, result);
+    } else {
+      Node<V> child = node.children.get(words[pos]);
+      if (child != null) {
+        result = match(child, words, pos + 1, result);
+      }
+      child = node.children.get(ONE);
+      if (child != null) {
+        result = match(child, words, pos + 1, result);
+      }
+    }
+    Node<V> any = node.children.get(ANY);
+    if (any != null) {
+      for (int i = pos; i <= words.length; i++) {
+        result = match(any, words, i, result);
+      }
+    }
+    return result;
+  }
+
+  private static <V> List<V> add(V value, List<V> result) {
+    if (value != null) {
+      if (result == null) {
+        result = new ArrayList<>(4);
+      }
+      // The same pattern can match more than one way, e.g. a.#.# matches a.b.c three ways
+      if (!result.contains(value)) {
+        result.add(value);
+      }
+    }
+    return result;
+  }
+
+  private static String[] split(String address) {
+    return address.split("\\.", -1);
+  }
+
+  private static class Node<V> {
+    final ConcurrentMap<String, Node<V>> children = new ConcurrentHashMap<>();
+    volatile V value;
+  }
+}
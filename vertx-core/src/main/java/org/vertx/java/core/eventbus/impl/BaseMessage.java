@@ -33,12 +33,20 @@ import org.vertx.java.core.net.impl.ServerID;
  */
 public abstract class BaseMessage<U> implements Message<U> {
 
+  // Bits of the byte following the type
+  private static final byte FLAG_PUBLISH = 0x01;
+  private static final byte FLAG_ROUTING_KEY = 0x02;
+  private static final byte FLAG_DEADLINE = 0x04;
+
   protected U body;
   protected ServerID sender;
   protected DefaultEventBus bus;
   protected String address;
   protected String replyAddress;
   protected boolean send; // Is it a send or a publish?
+  protected String routingKey; // Picks the handler for sends with a key
+  protected long deadline; // When the sender stops waiting for a reply, in millis since the epoch, 0 if there isn't one
+  private volatile Buffer encoded; // The wire frame, shared by all connections the message is written to
 
   protected BaseMessage(boolean send, String address, U body) {
     this.send = send;
@@ -63,7 +71,7 @@ public abstract class BaseMessage<U> implements Message<U> {
 
   @Override
   public void reply() {
-    sendReply(DefaultEventBus.createMessage(true, replyAddress, null), null);
+    sendReply(createReply(null), null);
   }
 
   @Override
@@ -133,22 +141,22 @@ public abstract class BaseMessage<U> implements Message<U> {
 
   @Override
   public <T> void reply(Handler<Message<T>> replyHandler) {
-    sendReply(DefaultEventBus.createMessage(true, replyAddress, null), replyHandler);
+    sendReply(createReply(null), replyHandler);
   }
 
   @Override
   public <T> void replyWithTimeout(long timeout, Handler<AsyncResult<Message<T>>> replyHandler) {
-    sendReplyWithTimeout(DefaultEventBus.createMessage(true, replyAddress, null), timeout, replyHandler);
+    sendReplyWithTimeout(createReply(null), timeout, replyHandler);
   }
 
   @Override
   public <T> void reply(Object message, Handler<Message<T>> replyHandler) {
-    sendReply(DefaultEventBus.createMessage(true, replyAddress, message), replyHandler);
+    sendReply(createReply(message), replyHandler);
   }
 
   @Override
   public <T> void replyWithTimeout(Object message, long timeout, Handler<AsyncResult<Message<T>>> replyHandler) {
-    sendReplyWithTimeout(DefaultEventBus.createMessage(true, replyAddress, message), timeout, replyHandler);
+    sendReplyWithTimeout(createReply(message), timeout, replyHandler);
   }
 
   @Override
@@ -278,8 +286,8 @@ public abstract class BaseMessage<U> implements Message<U> {
 
   protected BaseMessage(Buffer readBuff) {
     int pos = 1;
-    byte bsend = readBuff.getByte(pos);
-    send = bsend == 0;
+    byte flags = readBuff.getByte(pos);
+    send = (flags & FLAG_PUBLISH) == 0;
     pos += 1;
     int addressLength = readBuff.getInt(pos);
     pos += 4;
@@ -303,17 +311,63 @@ public abstract class BaseMessage<U> implements Message<U> {
     } else {
       replyAddress = null;
     }
+    if ((flags & FLAG_ROUTING_KEY) != 0) {
+      int routingKeyLength = readBuff.getInt(pos);
+      pos += 4;
+      byte[] routingKeyBytes = readBuff.getBytes(pos, pos + routingKeyLength);
+      pos += routingKeyLength;
+      routingKey = new String(routingKeyBytes, CharsetUtil.UTF_8);
+    }
+    if ((flags & FLAG_DEADLINE) != 0) {
+      deadline = readBuff.getLong(pos);
+      pos += 8;
+    }
     readBody(pos, readBuff);
   }
 
-  protected void write(NetSocket socket) {
+  protected void write(NetSocket socket, FrameCompression compression) {
+    // Buffer.getByteBuf() hands out a duplicate so the same frame can be written to any number of sockets
+    socket.write(encoded(compression));
+  }
+
+  /*
+   * The frame is encoded (and compressed) at most once per message, so publishing to N nodes costs a single encode
+   * and every connection writes the same underlying bytes. Connections for different nodes can ask for the frame
+   * from different threads at the same time, and subclasses hold state between getBodyLength and writeBody, so the
+   * encode itself is done under the message's lock
+   */
+  protected Buffer encoded(FrameCompression compression) {
+    Buffer frame = encoded;
+    if (frame == null) {
+      synchronized (this) {
+        frame = encoded;
+        if (frame == null) {
+          frame = encode();
+          if (compression != null) {
+            frame = compression.compress(frame);
+          }
+          encoded = frame;
+        }
+      }
+    }
+    return frame;
+  }
+
+  private Buffer encode() {
     int length = 1 + 1 + 4 + address.length() + 1 + 4 * sender.host.length() +
         4 + (replyAddress == null ? 0 : replyAddress.length()) +
-        getBodyLength();
+        (routingKey == null ? 0 : 4 + routingKey.length()) + (deadline == 0 ? 0 : 8) + getBodyLength();
     Buffer totBuff = new Buffer(length);
     totBuff.appendInt(0);
     totBuff.appendByte(type());
-    totBuff.appendByte(send ? (byte)0 : (byte)1);
+    byte flags = send ? 0 : FLAG_PUBLISH;
+    if (routingKey != null) {
+      flags |= FLAG_ROUTING_KEY;
+    }
+    if (deadline != 0) {
+      flags |= FLAG_DEADLINE;
+    }
+    totBuff.appendByte(flags);
     writeString(totBuff, address);
     totBuff.appendInt(sender.port);
     writeString(totBuff, sender.host);
@@ -322,9 +376,15 @@ public abstract class BaseMessage<U> implements Message<U> {
     } else {
       totBuff.appendInt(0);
     }
+    if (routingKey != null) {
+      writeString(totBuff, routingKey);
+    }
+    if (deadline != 0) {
+      totBuff.appendLong(deadline);
+    }
     writeBody(totBuff);
     totBuff.setInt(0, totBuff.length() - 4);
-    socket.write(totBuff);
+    return totBuff;
   }
 
   protected void writeString(Buffer buff, String str) {
@@ -343,14 +403,36 @@ public abstract class BaseMessage<U> implements Message<U> {
 
   protected abstract int getBodyLength();
 
-  private <T> void sendReply(BaseMessage msg, Handler<Message<T>> replyHandler) {
+  // Creates the message sent by EventBus.forward. Subclasses which can hold their body in wire form override this
+  // so forwarding doesn't decode it
+  protected BaseMessage<U> forwardTo(String address) {
+    return bus.createMessage(true, address, body());
+  }
+
+  private BaseMessage<?> createReply(Object message) {
+    // The bus is only null for messages which haven't been received, and they can't be replied to
+    return bus == null ? null : bus.createMessage(true, replyAddress, message);
+  }
+
+  boolean expired() {
+    return deadline != 0 && System.currentTimeMillis() > deadline;
+  }
+
+  // A reply is only useful to the sender until the deadline, and so is waiting for an answer to it
+  private <T> void sendReply(BaseMessage<?> msg, Handler<Message<T>> replyHandler) {
     if (bus != null && replyAddress != null) {
+      if (msg != null) {
+        msg.deadline = deadline;
+      }
       bus.sendReply(sender, msg, replyHandler);
     }
   }
 
-  private <T> void sendReplyWithTimeout(BaseMessage msg, long timeout, Handler<AsyncResult<Message<T>>> replyHandler) {
+  private <T> void sendReplyWithTimeout(BaseMessage<?> msg, long timeout, Handler<AsyncResult<Message<T>>> replyHandler) {
     if (bus != null) {
+      if (msg != null) {
+        msg.deadline = deadline;
+      }
       bus.sendReplyWithTimeout(sender, msg, timeout, replyHandler);
     }
   }
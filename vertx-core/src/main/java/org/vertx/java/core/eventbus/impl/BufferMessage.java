@@ -66,6 +66,7 @@ class BufferMessage extends BaseMessage<Buffer> {
     copied.replyAddress = this.replyAddress;
     copied.bus = this.bus;
     copied.sender = this.sender;
+    copied.deadline = this.deadline;
     return copied;
   }
 
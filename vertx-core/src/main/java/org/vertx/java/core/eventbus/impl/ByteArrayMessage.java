@@ -72,6 +72,7 @@ class ByteArrayMessage extends BaseMessage<byte[]> {
     copied.replyAddress = this.replyAddress;
     copied.bus = this.bus;
     copied.sender = this.sender;
+    copied.deadline = this.deadline;
     return copied;
   }
 
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus.impl;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.ChannelGroupFuture;
+import io.netty.channel.group.ChannelGroupFutureListener;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.eventbus.MessageCodec;
+import org.vertx.java.core.impl.DefaultContext;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+import org.vertx.java.core.net.impl.TCPSSLHelper;
+import org.vertx.java.core.net.impl.Transport;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * Accepts the connections other nodes send their messages over.<p>
+ * Rather than going through a {@link org.vertx.java.core.net.NetServer} and re-framing with a
+ * {@link org.vertx.java.core.parsetools.RecordParser}, which copies every frame to the heap at least twice, this
+ * has a pipeline of its own which cuts frames straight out of the pooled buffers read from the socket and decodes
+ * the messages from them. Everything runs on the event loop of the context which created the event bus.
+ */
+class ClusterServer {
+
+  private static final Logger log = LoggerFactory.getLogger(ClusterServer.class);
+
+  private static final byte[] PONG = new byte[] { (byte)1 };
+
+  private final VertxInternal vertx;
+  private final DefaultContext context;
+  private final Map<Integer, MessageCodec<?>> codecs;
+  private final FrameCompression compression;
+  private final Handler<BaseMessage<?>> receiver;
+  private final ChannelGroup channels = new DefaultChannelGroup("vertx-eventbus-channels", GlobalEventExecutor.INSTANCE);
+  private int port;
+
+  ClusterServer(VertxInternal vertx, Map<Integer, MessageCodec<?>> codecs, FrameCompression compression,
+                Handler<BaseMessage<?>> receiver) {
+    this.vertx = vertx;
+    this.context = vertx.getOrCreateContext();
+    this.codecs = codecs;
+    this.compression = compression;
+    this.receiver = receiver;
+  }
+
+  void listen(int port, String host, final Handler<AsyncResult<Void>> listenHandler) {
+    ServerBootstrap bootstrap = new ServerBootstrap();
+    bootstrap.group(context.getEventLoop());
+    bootstrap.channel(Transport.serverSocketChannel());
+    bootstrap.childHandler(new ChannelInitializer<Channel>() {
+      @Override
+      protected void initChannel(Channel ch) throws Exception {
+        channels.add(ch);
+        ch.pipeline().addLast("frameDecoder", new FrameDecoder());
+        ch.pipeline().addLast("handler", new FrameHandler());
+      }
+    });
+    // The same defaults as a NetServer
+    new TCPSSLHelper().applyConnectionOptions(bootstrap);
+    ChannelFuture bindFuture;
+    try {
+      bindFuture = bootstrap.bind(new InetSocketAddress(InetAddress.getByName(host), port));
+    } catch (final Throwable t) {
+      runListenHandler(listenHandler, new DefaultFutureResult<Void>(t));
+      return;
+    }
+    channels.add(bindFuture.channel());
+    bindFuture.addListener(new ChannelFutureListener() {
+      @Override
+      public void operationComplete(ChannelFuture future) throws Exception {
+        if (future.isSuccess()) {
+          // Update port to actual port - wildcard port 0 might have been used
+          ClusterServer.this.port = ((InetSocketAddress)future.channel().localAddress()).getPort();
+          runListenHandler(listenHandler, new DefaultFutureResult<>((Void)null));
+        } else {
+          runListenHandler(listenHandler, new DefaultFutureResult<Void>(future.cause()));
+        }
+      }
+    });
+  }
+
+  int port() {
+    return port;
+  }
+
+  void close(final Handler<AsyncResult<Void>> doneHandler) {
+    channels.close().addListener(new ChannelGroupFutureListener() {
+      @Override
+      public void operationComplete(final ChannelGroupFuture future) throws Exception {
+        if (doneHandler != null) {
+          context.execute(new Runnable() {
+            public void run() {
+              if (future.isSuccess()) {
+                doneHandler.handle(new DefaultFutureResult<>((Void)null));
+              } else {
+                doneHandler.handle(new DefaultFutureResult<Void>(future.cause()));
+              }
+            }
+          });
+        }
+      }
+    });
+  }
+
+  private void runListenHandler(final Handler<AsyncResult<Void>> listenHandler, final AsyncResult<Void> res) {
+    context.execute(new Runnable() {
+      public void run() {
+        listenHandler.handle(res);
+      }
+    });
+  }
+
+  /*
+   * Frames are an int length followed by that many bytes. The frame handed on excludes the length and is a slice of
+   * the buffer read from the socket rather than a copy of it
+   */
+  private static class FrameDecoder extends LengthFieldBasedFrameDecoder {
+
+    FrameDecoder() {
+      super(Integer.MAX_VALUE, 0, 4, 0, 4);
+    }
+
+    @Override
+    protected ByteBuf extractFrame(ChannelHandlerContext ctx, ByteBuf buffer, int index, int length) {
+      return buffer.slice(index, length).retain();
+    }
+  }
+
+  private class FrameHandler extends ChannelInboundHandlerAdapter {
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+      ByteBuf frame = (ByteBuf)msg;
+      BaseMessage<?> received;
+      try {
+        // The messages copy out everything they keep, so the frame can go straight back to the pool
+        received = MessageFactory.read(new Buffer(frame), codecs, compression);
+      } catch (Exception e) {
+        // The frame boundaries don't depend on the content, so the next frame can still be read
+        log.error("Failed to decode message from " + ctx.channel().remoteAddress(), e);
+        return;
+      } finally {
+        frame.release();
+      }
+      if (received.type() == MessageFactory.TYPE_PING) {
+        // Send back a pong - a byte will do
+        ctx.writeAndFlush(Unpooled.wrappedBuffer(PONG));
+      } else {
+        boolean timed = DefaultContext.executeStart(context);
+        vertx.setContext(context);
+        try {
+          receiver.handle(received);
+        } catch (Throwable t) {
+          context.reportException(t);
+        } finally {
+          DefaultContext.executeEnd(timed);
+        }
+      }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+      log.error("Failure on event bus connection from " + ctx.channel().remoteAddress(), cause);
+      ctx.close();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package org.vertx.java.core.eventbus.impl;
+
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.eventbus.MessageCodec;
+
+import java.util.Map;
+
+/**
+ * A message whose body is a user type, encoded on the wire with a registered {@link MessageCodec}
+ */
+class CodecMessage<T> extends BaseMessage<T> {
+
+  private MessageCodec<T> codec;
+  // Set by readBody, which runs before the codec has been resolved
+  private int codecID;
+  private Buffer readBuff;
+  private int bodyPos;
+  private int bodyLength;
+
+  CodecMessage(boolean send, String address, T body, MessageCodec<T> codec) {
+    super(send, address, body);
+    this.codec = codec;
+  }
+
+  @SuppressWarnings("unchecked")
+  CodecMessage(Buffer readBuff, Map<Integer, MessageCodec<?>> codecs) {
+    super(readBuff);
+    codec = (MessageCodec<T>)codecs.get(codecID);
+    if (codec == null) {
+      throw new IllegalStateException("No codec registered for type id " + codecID);
+    }
+    if (bodyLength != -1) {
+      body = codec.decode(this.readBuff, bodyPos, bodyLength);
+    }
+    this.readBuff = null;
+  }
+
+  @Override
+  protected void readBody(int pos, Buffer readBuff) {
+    codecID = readBuff.getInt(pos);
+    pos += 4;
+    boolean isNull = readBuff.getByte(pos) == (byte)0;
+    if (isNull) {
+      bodyLength = -1;
+    } else {
+      pos++;
+      bodyLength = readBuff.getInt(pos);
+      pos += 4;
+      bodyPos = pos;
+      this.readBuff = readBuff;
+    }
+  }
+
+  @Override
+  protected void writeBody(Buffer buff) {
+    buff.appendInt(codec.typeId());
+    if (body == null) {
+      buff.appendByte((byte)0);
+    } else {
+      buff.appendByte((byte)1);
+      // The codec appends straight to the frame and the length is patched in afterwards, so nothing is kept on the
+      // message between sizing and writing the frame
+      int lengthPos = buff.length();
+      buff.appendInt(0);
+      codec.encode(body, buff);
+      buff.setInt(lengthPos, buff.length() - lengthPos - 4);
+    }
+  }
+
+  @Override
+  protected int getBodyLength() {
+    // The encoded size isn't known until the codec has run, so this is only the fixed part. The frame grows as
+    // needed
+    return body == null ? 4 + 1 : 4 + 1 + 4;
+  }
+
+  @Override
+  protected Message<T> copy() {
+    CodecMessage<T> copied = new CodecMessage<>(send, address, body == null ? null : codec.transfer(body), codec);
+    copied.replyAddress = this.replyAddress;
+    copied.bus = this.bus;
+    copied.sender = this.sender;
+    copied.deadline = this.deadline;
+    return copied;
+  }
+
+  @Override
+  protected byte type() {
+    return MessageFactory.TYPE_CODEC;
+  }
+
+}
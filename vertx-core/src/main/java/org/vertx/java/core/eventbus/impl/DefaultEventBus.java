@@ -22,34 +22,56 @@ import org.vertx.java.core.Handler;
 import org.vertx.java.core.VoidHandler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.eventbus.EventBusReadStream;
+import org.vertx.java.core.eventbus.EventBusWriteStream;
 import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.eventbus.MessageCodec;
+import org.vertx.java.core.eventbus.MessageCompressor;
+import org.vertx.java.core.eventbus.MessagePriority;
+import org.vertx.java.core.eventbus.OverflowPolicy;
 import org.vertx.java.core.eventbus.ReplyException;
 import org.vertx.java.core.eventbus.ReplyFailure;
 import org.vertx.java.core.impl.Closeable;
+import org.vertx.java.core.impl.ConcurrentLongObjectMap;
 import org.vertx.java.core.impl.DefaultContext;
 import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.impl.EventLoopContext;
 import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.impl.management.EventBusAddressMXBeanImpl;
+import org.vertx.java.core.impl.management.EventBusConnectionMXBeanImpl;
+import org.vertx.java.core.impl.management.EventBusMXBeanImpl;
 import org.vertx.java.core.impl.management.ManagementRegistry;
 import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 import org.vertx.java.core.net.NetClient;
-import org.vertx.java.core.net.NetServer;
 import org.vertx.java.core.net.NetSocket;
+import org.vertx.java.core.net.impl.ConnectionBase;
 import org.vertx.java.core.net.impl.ServerID;
-import org.vertx.java.core.parsetools.RecordParser;
 import org.vertx.java.core.spi.cluster.AsyncMultiMap;
 import org.vertx.java.core.spi.cluster.ChoosableIterable;
 import org.vertx.java.core.spi.cluster.ClusterManager;
-
+import org.vertx.java.core.spi.cluster.ListenableAsyncMultiMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -61,18 +83,53 @@ public class DefaultEventBus implements EventBus {
 
   private static final Logger log = LoggerFactory.getLogger(DefaultEventBus.class);
 
-  private static final Buffer PONG = new Buffer(new byte[] { (byte)1 });
+  private static final String STREAM_ADDRESS_PREFIX = "__vertx.stream.";
   private static final long PING_INTERVAL = 20000;
   private static final long PING_REPLY_INTERVAL = 20000;
+  private static final int COALESCE_MAX_BATCH = Integer.getInteger("vertx.cluster.coalesce.maxbatch", 4096);
+  private static final long COALESCE_MAX_DELAY = Long.getLong("vertx.cluster.coalesce.maxdelay", 0);
+  private static final int SPILL_CHUNK_SIZE = 64 * 1024;
+  // Opt-in separate connections to each node for each message priority
+  private static final boolean PRIORITY_LANES = Boolean.getBoolean("vertx.cluster.prioritylanes");
   private final VertxInternal vertx;
   private ServerID serverID;
-  private NetServer server;
+  private ClusterServer server;
   private AsyncMultiMap<String, ServerID> subs;
+  // Only when clustered. Subs are only cached if the cluster manager can tell us about changes to them
+  private SubsCache subsCache;
   private long defaultReplyTimeout = -1;
-  private final ConcurrentMap<ServerID, ConnectionHolder> connections = new ConcurrentHashMap<>();
+  private volatile boolean localityAware = Boolean.getBoolean("vertx.eventbus.localityaware");
+  // Opt-in coalescing of writes on node to node connections - messages written during one event loop tick
+  // (or within the max delay) are flushed to the socket together instead of one flush per message
+  private final boolean coalesceWrites = Boolean.getBoolean("vertx.cluster.coalesce.writes");
+  // Limit on the size of the messages waiting for a connection to another node - once it's reached further messages
+  // are either failed or spilled to disk until the connection is made
+  private final long maxPendingBytes = Long.getLong("vertx.cluster.pending.maxbytes", 64 * 1024 * 1024);
+  private final boolean spillPending = Boolean.getBoolean("vertx.cluster.pending.spill");
+  private final File spillDir = new File(System.getProperty("vertx.cluster.pending.spilldir",
+      System.getProperty("java.io.tmpdir")));
+  // Keyed by address and stream handler
+  private final ConcurrentMap<Map.Entry<String, Handler<EventBusReadStream>>, Handler<Message<String>>> streamHandlers = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Boolean> localityAwareAddresses = new ConcurrentHashMap<>();
+  private volatile boolean leastOutstanding = Boolean.getBoolean("vertx.eventbus.leastoutstanding");
+  private final ConcurrentMap<String, Boolean> leastOutstandingAddresses = new ConcurrentHashMap<>();
+  // The connections to other nodes for each priority lane, in the order of MessagePriority. Just one if lanes aren't
+  // enabled. Only the connections on the first lane are pinged
+  private final List<ConcurrentMap<ServerID, ConnectionHolder>> connections = connectionLanes();
+  private final ConcurrentMap<String, MessagePriority> priorities = new ConcurrentHashMap<>();
   private final ConcurrentMap<String, Handlers> handlerMap = new ConcurrentHashMap<>();
+  // Handlers registered with wildcard addresses - they're only looked up when there are some
+  private final AddressTrie<Handlers> wildcardMap = new AddressTrie<>();
   private final ClusterManager clusterMgr;
   private final AtomicLong replySequence = new AtomicLong(0);
+  private final ConcurrentLongObjectMap<ReplyHandler<?>> replyHandlers = new ConcurrentLongObjectMap<>();
+  private final ConcurrentMap<DefaultContext, ContextReplies> contextReplies = new ConcurrentHashMap<>();
+  private final String replyAddressPrefix;
+  // Null unless management is enabled
+  private EventBusMXBeanImpl metrics;
+  private final FrameCompression compression = new FrameCompression();
+  private final ConcurrentMap<Class<?>, MessageCodec<?>> codecsByType = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Integer, MessageCodec<?>> codecsByID = new ConcurrentHashMap<>();
 
   public DefaultEventBus(VertxInternal vertx) {
     // Just some dummy server ID
@@ -81,7 +138,8 @@ public class DefaultEventBus implements EventBus {
     this.server = null;
     this.subs = null;
     this.clusterMgr = null;
-    ManagementRegistry.registerEventBus(serverID);
+    this.replyAddressPrefix = "__vertx.reply.";
+    this.metrics = ManagementRegistry.registerEventBus(serverID);
   }
 
   public DefaultEventBus(VertxInternal vertx, int port, String hostname, ClusterManager clusterManager) {
@@ -93,8 +151,13 @@ public class DefaultEventBus implements EventBus {
     this.vertx = vertx;
     this.clusterMgr = clusterManager;
     this.subs = clusterMgr.getAsyncMultiMap("subs");
+    subsCache = new SubsCache(subs instanceof ListenableAsyncMultiMap);
+    if (subs instanceof ListenableAsyncMultiMap) {
+      ((ListenableAsyncMultiMap<String, ServerID>)subs).addListener(subsCache);
+    }
+    // The random node part means reply addresses can't be guessed from other nodes
+    this.replyAddressPrefix = "__vertx.reply." + UUID.randomUUID() + ".";
     this.server = setServer(port, hostname, listenHandler);
-    ManagementRegistry.registerEventBus(serverID);
   }
 
   @Override
@@ -123,6 +186,19 @@ public class DefaultEventBus implements EventBus {
     return this;
   }
 
+  @Override
+  public EventBus sendWithKey(String address, String routingKey, Object message) {
+    return sendWithKey(address, routingKey, message, null);
+  }
+
+  @Override
+  public <T> EventBus sendWithKey(String address, String routingKey, Object message, Handler<Message<T>> replyHandler) {
+    BaseMessage<Object> msg = createMessage(true, address, message);
+    msg.routingKey = routingKey;
+    sendOrPub(msg, replyHandler);
+    return this;
+  }
+
   @Override
   public <T> EventBus send(String address, JsonObject message, final Handler<Message<T>> replyHandler) {
     sendOrPub(new JsonObjectMessage(true, address, message), replyHandler);
@@ -357,6 +433,12 @@ public class DefaultEventBus implements EventBus {
     return this;
   }
 
+  @Override
+  public EventBus forward(String address, Message<?> message) {
+    sendOrPub(((BaseMessage<?>)message).forwardTo(address), null);
+    return this;
+  }
+
   @Override
   public EventBus publish(String address, Object message) {
     sendOrPub(createMessage(false, address, message), null);
@@ -444,7 +526,7 @@ public class DefaultEventBus implements EventBus {
   @Override
   public EventBus registerHandler(String address, Handler<? extends Message> handler,
                               Handler<AsyncResult<Void>> completionHandler) {
-    registerHandler(address, handler, completionHandler, false, false, -1);
+    registerHandler(address, handler, completionHandler, false, -1, null);
     return this;
   }
 
@@ -454,9 +536,43 @@ public class DefaultEventBus implements EventBus {
     return this;
   }
 
+  @Override
+  public <T> EventBus registerHandler(String address, Handler<Message<T>> handler, int maxPending,
+                                      OverflowPolicy policy, Handler<AsyncResult<Void>> completionHandler) {
+    if (maxPending < 1) {
+      throw new IllegalArgumentException("maxPending must be > 0");
+    }
+    if (policy == null) {
+      throw new NullPointerException("policy");
+    }
+    registerHandler(address, handler, completionHandler, false, maxPending, policy);
+    return this;
+  }
+
+  @Override
+  public <T> EventBus registerHandler(String address, Handler<Message<T>> handler, int maxPending,
+                                      OverflowPolicy policy) {
+    registerHandler(address, handler, maxPending, policy, null);
+    return this;
+  }
+
+  @Override
+  public int getPendingMessages(String address) {
+    Handlers handlers = getHandlers(address);
+    int pending = 0;
+    if (handlers != null) {
+      for (HandlerHolder<?> holder: handlers.list) {
+        if (holder.pending != null) {
+          pending += holder.pending.get();
+        }
+      }
+    }
+    return pending;
+  }
+
   @Override
   public EventBus registerLocalHandler(String address, Handler<? extends Message> handler) {
-    registerHandler(address, handler, null, false, true, -1);
+    registerHandler(address, handler, null, true, -1, null);
     return this;
   }
 
@@ -464,22 +580,26 @@ public class DefaultEventBus implements EventBus {
   public EventBus unregisterHandler(String address, Handler<? extends Message> handler,
                                     Handler<AsyncResult<Void>> completionHandler) {
     checkStarted();
-    Handlers handlers = handlerMap.get(address);
+    Handlers handlers = getHandlers(address);
     if (handlers != null) {
       synchronized (handlers) {
         int size = handlers.list.size();
         // Requires a list traversal. This is tricky to optimise since we can't use a set since
         // we need fast ordered traversal for the round robin
         for (int i = 0; i < size; i++) {
-          HandlerHolder holder = handlers.list.get(i);
+          HandlerHolder<?> holder = handlers.list.get(i);
           if (holder.handler == handler) {
-            if (holder.timeoutID != -1) {
-              vertx.cancelTimer(holder.timeoutID);
-            }
-            handlers.list.remove(i);
+            handlers.remove(i);
             holder.removed = true;
             if (handlers.list.isEmpty()) {
-              handlerMap.remove(address);
+              if (handlers.wildcard) {
+                wildcardMap.remove(address, handlers);
+              } else {
+                handlerMap.remove(address);
+              }
+              if (metrics != null) {
+                metrics.addressUnregistered(address);
+              }
               if (subs != null && !holder.localOnly) {
                 removeSub(address, serverID, completionHandler);
               } else if (completionHandler != null) {
@@ -503,8 +623,66 @@ public class DefaultEventBus implements EventBus {
     return this;
   }
 
+  @Override
+  public EventBus registerStreamHandler(final String address, final Handler<EventBusReadStream> handler) {
+    Handler<Message<String>> opener = new Handler<Message<String>>() {
+      public void handle(final Message<String> open) {
+        final String dataAddress = STREAM_ADDRESS_PREFIX + UUID.randomUUID();
+        final DefaultEventBusReadStream stream = new DefaultEventBusReadStream(vertx, DefaultEventBus.this, address,
+                                                                               dataAddress);
+        // The sender mustn't start writing until the data address can be reached from its node
+        registerHandler(dataAddress, stream, new AsyncResultHandler<Void>() {
+          public void handle(AsyncResult<Void> res) {
+            if (res.succeeded()) {
+              stream.start();
+              handler.handle(stream);
+              open.reply(dataAddress);
+            } else {
+              log.error("Failed to register stream at " + address, res.cause());
+              open.fail(0, res.cause().getMessage());
+            }
+          }
+        });
+      }
+    };
+    if (streamHandlers.putIfAbsent(new SimpleImmutableEntry<>(address, handler), opener) == null) {
+      registerHandler(address, opener);
+    }
+    return this;
+  }
+
+  @Override
+  public EventBus unregisterStreamHandler(String address, Handler<EventBusReadStream> handler) {
+    Handler<Message<String>> opener = streamHandlers.remove(new SimpleImmutableEntry<>(address, handler));
+    if (opener != null) {
+      unregisterHandler(address, opener);
+    }
+    return this;
+  }
+
+  @Override
+  public EventBus openStream(final String address, final Handler<AsyncResult<EventBusWriteStream>> handler) {
+    sendWithTimeout(address, "", defaultReplyTimeout, new Handler<AsyncResult<Message<String>>>() {
+      public void handle(AsyncResult<Message<String>> res) {
+        if (res.succeeded()) {
+          EventBusWriteStream stream = new DefaultEventBusWriteStream(DefaultEventBus.this, address, res.result().body());
+          handler.handle(new DefaultFutureResult<>(stream));
+        } else {
+          handler.handle(new DefaultFutureResult<EventBusWriteStream>(res.cause()));
+        }
+      }
+    });
+    return this;
+  }
+
   @Override
   public void close(Handler<AsyncResult<Void>> doneHandler) {
+    if (metrics != null) {
+      ManagementRegistry.unregisterEventBus(metrics);
+    }
+    if (subs instanceof ListenableAsyncMultiMap) {
+      ((ListenableAsyncMultiMap<String, ServerID>)subs).removeListener(subsCache);
+    }
 		if (clusterMgr != null) {
 			clusterMgr.leave();
 		}
@@ -524,6 +702,48 @@ public class DefaultEventBus implements EventBus {
     return defaultReplyTimeout;
   }
 
+  @Override
+  public EventBus setLocalityAware(boolean localityAware) {
+    this.localityAware = localityAware;
+    return this;
+  }
+
+  @Override
+  public boolean isLocalityAware() {
+    return localityAware;
+  }
+
+  @Override
+  public EventBus setLocalityAware(String address, Boolean localityAware) {
+    if (localityAware == null) {
+      localityAwareAddresses.remove(address);
+    } else {
+      localityAwareAddresses.put(address, localityAware);
+    }
+    return this;
+  }
+
+  @Override
+  public EventBus setLeastOutstanding(boolean leastOutstanding) {
+    this.leastOutstanding = leastOutstanding;
+    return this;
+  }
+
+  @Override
+  public boolean isLeastOutstanding() {
+    return leastOutstanding;
+  }
+
+  @Override
+  public EventBus setLeastOutstanding(String address, Boolean leastOutstanding) {
+    if (leastOutstanding == null) {
+      leastOutstandingAddresses.remove(address);
+    } else {
+      leastOutstandingAddresses.put(address, leastOutstanding);
+    }
+    return this;
+  }
+
   <T, U> void sendReply(ServerID dest, BaseMessage<U> message, Handler<Message<T>> replyHandler) {
     sendOrPub(dest, message, replyHandler, -1);
   }
@@ -532,12 +752,72 @@ public class DefaultEventBus implements EventBus {
     if (message.address == null) {
       sendNoHandlersFailure(replyHandler);
     } else {
-      Handler<Message<T>> handler = convertHandler(replyHandler);
-      sendOrPub(dest, message, handler, replyHandler, timeout);
+      sendOrPub(dest, message, null, replyHandler, timeout);
     }
   }
 
-  static <U> BaseMessage<U> createMessage(boolean send, String address, U message) {
+  @Override
+  public EventBus setPriority(String address, MessagePriority priority) {
+    if (priority == null) {
+      priorities.remove(address);
+    } else {
+      priorities.put(address, priority);
+    }
+    return this;
+  }
+
+  @Override
+  public EventBus setCompressionThreshold(int bytes) {
+    compression.threshold = bytes;
+    return this;
+  }
+
+  @Override
+  public int getCompressionThreshold() {
+    return compression.threshold;
+  }
+
+  @Override
+  public EventBus setCompressor(MessageCompressor compressor) {
+    compression.setCompressor(compressor);
+    return this;
+  }
+
+  @Override
+  public <T> EventBus registerCodec(Class<T> type, MessageCodec<T> codec) {
+    if (type == null) {
+      throw new NullPointerException("type");
+    }
+    if (codec == null) {
+      throw new NullPointerException("codec");
+    }
+    synchronized (codecsByType) {
+      MessageCodec<?> existing = codecsByID.get(codec.typeId());
+      if (existing != null && existing != codecsByType.get(type)) {
+        throw new IllegalStateException("A codec is already registered with type id " + codec.typeId());
+      }
+      MessageCodec<?> prev = codecsByType.put(type, codec);
+      if (prev != null) {
+        codecsByID.remove(prev.typeId());
+      }
+      codecsByID.put(codec.typeId(), codec);
+    }
+    return this;
+  }
+
+  @Override
+  public EventBus unregisterCodec(Class<?> type) {
+    synchronized (codecsByType) {
+      MessageCodec<?> codec = codecsByType.remove(type);
+      if (codec != null) {
+        codecsByID.remove(codec.typeId());
+      }
+    }
+    return this;
+  }
+
+  @SuppressWarnings("unchecked")
+  <U> BaseMessage<U> createMessage(boolean send, String address, U message) {
     BaseMessage bm;
     if (message instanceof String) {
       bm = new StringMessage(send, address, (String)message);
@@ -568,42 +848,24 @@ public class DefaultEventBus implements EventBus {
     } else if (message == null) {
       bm = new StringMessage(send, address, null);
     } else {
-      throw new IllegalArgumentException("Cannot send object of class " + message.getClass() + " on the event bus: " + message);
+      MessageCodec<U> codec = (MessageCodec<U>)codecsByType.get(message.getClass());
+      if (codec == null) {
+        throw new IllegalArgumentException("Cannot send object of class " + message.getClass() + " on the event bus: " + message);
+      }
+      bm = new CodecMessage<>(send, address, message, codec);
     }
     return bm;
   }
 
-  private NetServer setServer(int port, final String hostName, final Handler<AsyncResult<Void>> listenHandler) {
-    final NetServer server = vertx.createNetServer().connectHandler(new Handler<NetSocket>() {
-      public void handle(final NetSocket socket) {
-        final RecordParser parser = RecordParser.newFixed(4, null);
-        Handler<Buffer> handler = new Handler<Buffer>() {
-          int size = -1;
-          public void handle(Buffer buff) {
-            if (size == -1) {
-              size = buff.getInt(0);
-              parser.fixedSizeMode(size);
-            } else {
-              BaseMessage received = MessageFactory.read(buff);
-              if (received.type() == MessageFactory.TYPE_PING) {
-                // Send back a pong - a byte will do
-                socket.write(PONG);
-              } else {
-                receiveMessage(received, -1, null, null);
-              }
-              parser.fixedSizeMode(4);
-              size = -1;
-            }
-          }
-        };
-        parser.setOutput(handler);
-        socket.dataHandler(parser);
+  private ClusterServer setServer(int port, final String hostName, final Handler<AsyncResult<Void>> listenHandler) {
+    final ClusterServer server = new ClusterServer(vertx, codecsByID, compression, new Handler<BaseMessage<?>>() {
+      public void handle(BaseMessage<?> received) {
+        receiveMessage(received, null);
       }
-
     });
-    server.listen(port, hostName, new AsyncResultHandler<NetServer>() {
+    server.listen(port, hostName, new AsyncResultHandler<Void>() {
       @Override
-      public void handle(AsyncResult<NetServer> asyncResult) {
+      public void handle(AsyncResult<Void> asyncResult) {
         if (asyncResult.succeeded()) {
           // Obtain system configured public host/port
           int publicPort = Integer.getInteger("vertx.cluster.public.port", -1);
@@ -612,14 +874,14 @@ public class DefaultEventBus implements EventBus {
           // If using a wilcard port (0) then we ask the server for the actual port:
           int serverPort = (publicPort == -1) ? server.port() : publicPort;
           String serverHost = (publicHost == null) ? hostName : publicHost;
-          DefaultEventBus.this.serverID = new ServerID(serverPort, serverHost);
+          ServerID id = new ServerID(serverPort, serverHost);
+          // Registered before the server ID is set so nothing can be sent without being counted
+          metrics = ManagementRegistry.registerEventBus(id);
+          compression.metrics = metrics;
+          DefaultEventBus.this.serverID = id;
         }
         if (listenHandler != null) {
-          if (asyncResult.succeeded()) {
-            listenHandler.handle(new DefaultFutureResult<>((Void)null));
-          } else {
-            listenHandler.handle(new DefaultFutureResult<Void>(asyncResult.cause()));
-          }
+          listenHandler.handle(asyncResult);
         } else if (asyncResult.failed()) {
           log.error("Failed to listen", asyncResult.cause());
         }
@@ -628,52 +890,104 @@ public class DefaultEventBus implements EventBus {
     return server;
   }
 
-  private <T> void sendToSubs(ChoosableIterable<ServerID> subs, BaseMessage message,
-                              long timeoutID,
-                              Handler<AsyncResult<Message<T>>> asyncResultHandler,
-                              Handler<Message<T>> replyHandler) {
+  private void sendToSubs(ChoosableIterable<ServerID> subs, BaseMessage<?> message, ReplyHandler<?> replyHandler) {
     if (message.send) {
       // Choose one
-      ServerID sid = subs.choose();
+      ServerID sid = message.routingKey == null ? subs.choose() : subsCache.ring(subs).choose(message.routingKey);
       if (!sid.equals(serverID)) {  //We don't send to this node
-        sendRemote(sid, message);
+        sendRemote(sid, message, priority(message.address));
       } else {
-        receiveMessage(message, timeoutID, asyncResultHandler, replyHandler);
+        receiveMessage(message, replyHandler);
       }
     } else {
       // Publish
+      boolean received = false;
       for (ServerID sid : subs) {
         if (!sid.equals(serverID)) {  //We don't send to this node
-          sendRemote(sid, message);
+          sendRemote(sid, message, priority(message.address));
         } else {
-          receiveMessage(message, timeoutID, null, replyHandler);
+          receiveMessage(message, null);
+          received = true;
         }
       }
+      if (!received && !wildcardMap.isEmpty() && wildcardMap.match(message.address) != null) {
+        // Wildcard handlers on this node aren't in subs
+        receiveMessage(message, null);
+      }
     }
   }
 
   private <T, U> void sendOrPubWithTimeout(BaseMessage<U> message,
                                            Handler<AsyncResult<Message<T>>> asyncResultHandler, long timeout) {
-    Handler<Message<T>> handler = convertHandler(asyncResultHandler);
-    sendOrPub(null, message, handler, asyncResultHandler, timeout);
+    sendOrPub(null, message, null, asyncResultHandler, timeout);
   }
 
   private <T, U> void sendOrPub(BaseMessage<U> message, Handler<Message<T>> replyHandler) {
     sendOrPub(null, message, replyHandler, -1);
   }
 
+  private ContextReplies contextReplies(DefaultContext context) {
+    ContextReplies replies = contextReplies.get(context);
+    if (replies == null) {
+      replies = new ContextReplies(context);
+      ContextReplies prev = contextReplies.putIfAbsent(context, replies);
+      if (prev != null) {
+        replies = prev;
+      } else {
+        context.addCloseHook(replies);
+      }
+    }
+    return replies;
+  }
+
+  private ReplyHandler<?> removeReplyHandler(long id) {
+    ReplyHandler<?> holder = replyHandlers.remove(id);
+    if (holder != null && holder.replies != null) {
+      holder.replies.handlers.remove(holder);
+    }
+    return holder;
+  }
+
   private <T, U> void sendOrPub(ServerID replyDest, BaseMessage<U> message, Handler<Message<T>> replyHandler, long timeout) {
     sendOrPub(replyDest, message, replyHandler, null, timeout);
   }
 
-  private String generateReplyAddress() {
-    if (clusterMgr != null) {
-      // The address is a cryptographically secure id that can't be guessed
-      return UUID.randomUUID().toString();
-    } else {
-      // Just use a sequence - it's faster
-      return Long.toString(replySequence.incrementAndGet());
+  // Returns the id of the reply handler the address belongs to, or -1 if it isn't a reply address of this node
+  private long replyID(String address) {
+    int prefixLength = replyAddressPrefix.length();
+    int length = address.length();
+    if (length == prefixLength || length > prefixLength + 18 || !address.startsWith(replyAddressPrefix)) {
+      return -1;
+    }
+    long id = 0;
+    for (int i = prefixLength; i < length; i++) {
+      char c = address.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      id = id * 10 + (c - '0');
     }
+    return id;
+  }
+
+  private <T> ReplyHandler<T> registerReplyHandler(BaseMessage<?> message, Handler<Message<T>> replyHandler,
+                                                   Handler<AsyncResult<Message<T>>> asyncResultHandler,
+                                                   long timeout, EventBusAddressMXBeanImpl addressMetrics) {
+    long id = replySequence.incrementAndGet();
+    DefaultContext context = vertx.getOrCreateContext();
+    ReplyHandler<T> holder = new ReplyHandler<>(id, replyHandler, asyncResultHandler, context, addressMetrics);
+    message.replyAddress = replyAddressPrefix + id;
+    // Only contexts which belong to a deployment are ever closed
+    if (context.getDeploymentHandle() != null) {
+      holder.replies = contextReplies(context);
+      holder.replies.handlers.add(holder);
+    }
+    replyHandlers.put(id, holder);
+    if (timeout != -1) {
+      // Remove the reply handler if a reply never comes, to prevent leaks
+      holder.timeout = holder.context.getEventLoop().schedule(holder, timeout, TimeUnit.MILLISECONDS);
+    }
+    return holder;
   }
 
   private <T, U> void sendOrPub(ServerID replyDest, final BaseMessage<U> message, final Handler<Message<T>> replyHandler,
@@ -683,43 +997,81 @@ public class DefaultEventBus implements EventBus {
     if (timeout == -1) {
       timeout = defaultReplyTimeout;
     }
-    try {
-      message.sender = serverID;
-      long timeoutID = -1;
-      if (replyHandler != null) {
-        message.replyAddress = generateReplyAddress();
-        if (timeout != -1) {
-          // Add a timeout to remove the reply handler to prevent leaks in case a reply never comes
-          timeoutID = vertx.setTimer(timeout, new Handler<Long>() {
-            @Override
-            public void handle(Long timerID) {
-              log.warn("Message reply handler timed out as no reply was received - it will be removed");
-              unregisterHandler(message.replyAddress, replyHandler);
-              if (asyncResultHandler != null) {
-                asyncResultHandler.handle(new DefaultFutureResult<Message<T>>(new ReplyException(ReplyFailure.TIMEOUT, "Timed out waiting for reply")));
-              }
+    if (message.deadline != 0) {
+      // A reply to a message with a deadline. Nobody's waiting for it once that's passed
+      long remaining = message.deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        if (metrics != null) {
+          metrics.untracked().messageExpired();
+        }
+        if (asyncResultHandler != null) {
+          // Fail it the same way as a reply handler that times out, so the caller isn't left waiting
+          context.execute(new Runnable() {
+            public void run() {
+              asyncResultHandler.handle(new DefaultFutureResult<Message<T>>(new ReplyException(ReplyFailure.TIMEOUT, "Timed out waiting for reply")));
             }
           });
         }
-        registerHandler(message.replyAddress, replyHandler, null, true, true, timeoutID);
+        return;
+      }
+      if (timeout == -1 || timeout > remaining) {
+        timeout = remaining;
+      }
+    }
+    try {
+      message.sender = serverID;
+      EventBusAddressMXBeanImpl addressMetrics = null;
+      if (metrics != null) {
+        // Replies aren't counted per address, there'd be one for each reply
+        if (replyDest == null) {
+          addressMetrics = metrics.address(message.address);
+          if (message.send) {
+            addressMetrics.messageSent();
+          } else {
+            addressMetrics.messagePublished();
+          }
+        } else {
+          addressMetrics = metrics.untracked();
+        }
+      }
+      final ReplyHandler<T> replyHolder;
+      if (replyHandler != null || asyncResultHandler != null) {
+        replyHolder = registerReplyHandler(message, replyHandler, asyncResultHandler, timeout, addressMetrics);
+        // Lets the handler skip the message if it only gets to it after we've stopped waiting. Stream chunks are
+        // never skipped, a reader that falls behind would see a gap in the data. Their timeout only fails the ack
+        if (timeout != -1 && message.deadline == 0 && !message.address.startsWith(STREAM_ADDRESS_PREFIX)) {
+          message.deadline = System.currentTimeMillis() + timeout;
+        }
+      } else {
+        replyHolder = null;
       }
       if (replyDest != null) {
         if (!replyDest.equals(this.serverID)) {
-          sendRemote(replyDest, message);
+          sendRemote(replyDest, message, MessagePriority.HIGH);
         } else {
-          receiveMessage(message, timeoutID, asyncResultHandler, replyHandler);
+          receiveMessage(message, replyHolder);
         }
       } else {
-        if (subs != null) {
-          final long fTimeoutID = timeoutID;
+        ChoosableIterable<ServerID> cached = subsCache == null ? null : subsCache.get(message.address);
+        if (cached != null) {
+          if (!cached.isEmpty()) {
+            sendToSubs(cached, message, replyHolder);
+          } else {
+            receiveMessage(message, replyHolder);
+          }
+        } else if (subs != null) {
+          final long token = subsCache == null ? 0 : subsCache.fetching();
           subs.get(message.address, new AsyncResultHandler<ChoosableIterable<ServerID>>() {
             public void handle(AsyncResult<ChoosableIterable<ServerID>> event) {
               if (event.succeeded()) {
                 ChoosableIterable<ServerID> serverIDs = event.result();
+                if (subsCache != null) {
+                  serverIDs = subsCache.put(message.address, serverIDs, token);
+                }
                 if (serverIDs != null && !serverIDs.isEmpty()) {
-                  sendToSubs(serverIDs, message, fTimeoutID, asyncResultHandler, replyHandler);
+                  sendToSubs(serverIDs, message, replyHolder);
                 } else {
-                  receiveMessage(message, fTimeoutID, asyncResultHandler, replyHandler);
+                  receiveMessage(message, replyHolder);
                 }
               } else {
                 log.error("Failed to send message", event.cause());
@@ -728,7 +1080,7 @@ public class DefaultEventBus implements EventBus {
           });
         } else {
           // Not clustered
-          receiveMessage(message, timeoutID, asyncResultHandler, replyHandler);
+          receiveMessage(message, replyHolder);
         }
       }
 
@@ -741,25 +1093,9 @@ public class DefaultEventBus implements EventBus {
     }
   }
 
-  private <T> Handler<Message<T>> convertHandler(final Handler<AsyncResult<Message<T>>> handler) {
-    return new Handler<Message<T>>() {
-      @Override
-      public void handle(Message<T> reply) {
-        DefaultFutureResult<Message<T>> result;
-        if (reply.body() instanceof ReplyException) {
-          // This is kind of clunky - but hey-ho
-          result = new DefaultFutureResult<>((ReplyException)reply.body());
-        } else {
-          result = new DefaultFutureResult<>(reply);
-        }
-        handler.handle(result);
-      }
-    };
-  }
-
   private void registerHandler(String address, Handler<? extends Message> handler,
-                               Handler<AsyncResult<Void>> completionHandler,
-                               boolean replyHandler, boolean localOnly, long timeoutID) {
+                               Handler<AsyncResult<Void>> completionHandler, boolean localOnly,
+                               int maxPending, OverflowPolicy policy) {
     checkStarted();
     if (address == null) {
       throw new NullPointerException("address");
@@ -769,10 +1105,15 @@ public class DefaultEventBus implements EventBus {
     if (!hasContext) {
       context = vertx.createEventLoopContext();
     }
-    Handlers handlers = handlerMap.get(address);
+    EventBusAddressMXBeanImpl addressMetrics = metrics == null ? null : metrics.addressRegistered(address);
+    boolean wildcard = AddressTrie.isWildcard(address);
+    // Wildcard subscriptions aren't propagated to the cluster
+    localOnly |= wildcard;
+    Handlers handlers = getHandlers(address);
     if (handlers == null) {
-      handlers = new Handlers();
-      Handlers prevHandlers = handlerMap.putIfAbsent(address, handlers);
+      handlers = new Handlers(wildcard);
+      Handlers prevHandlers = wildcard ? wildcardMap.putIfAbsent(address, handlers)
+                                       : handlerMap.putIfAbsent(address, handlers);
       if (prevHandlers != null) {
         handlers = prevHandlers;
       }
@@ -785,15 +1126,15 @@ public class DefaultEventBus implements EventBus {
           }
         };
       }
-      handlers.list.add(new HandlerHolder(handler, replyHandler, localOnly, context, timeoutID));
-      if (subs != null && !replyHandler && !localOnly) {
+      handlers.add(new HandlerHolder(handler, localOnly, context, maxPending, policy, addressMetrics));
+      if (subs != null && !localOnly) {
         // Propagate the information
         subs.add(address, serverID, completionHandler);
       } else {
         callCompletionHandler(completionHandler);
       }
     } else {
-      handlers.list.add(new HandlerHolder(handler, replyHandler, localOnly, context, timeoutID));
+      handlers.add(new HandlerHolder(handler, localOnly, context, maxPending, policy, addressMetrics));
       if (completionHandler != null) {
         callCompletionHandler(completionHandler);
       }
@@ -804,6 +1145,14 @@ public class DefaultEventBus implements EventBus {
     }
   }
 
+  private Handlers getHandlers(String address) {
+    Handlers handlers = handlerMap.get(address);
+    if (handlers == null && !wildcardMap.isEmpty()) {
+      handlers = wildcardMap.get(address);
+    }
+    return handlers;
+  }
+
   private void callCompletionHandler(Handler<AsyncResult<Void>> completionHandler) {
     completionHandler.handle(new DefaultFutureResult<>((Void) null));
   }
@@ -830,42 +1179,66 @@ public class DefaultEventBus implements EventBus {
       holder.socket.close();
     } catch (Exception ignore) {
     }
+    holder.discardSpill();
 
     // The holder can be null or different if the target server is restarted with same serverid
     // before the cleanup for the previous one has been processed
     // So we only actually remove the entry if no new entry has been added
-    if (connections.remove(theServerID, holder)) {
+    if (connections.get(holder.lane).remove(theServerID, holder)) {
       log.debug("Cluster connection closed: " + theServerID + " holder " + holder);
+      if (metrics != null) {
+        metrics.connectionClosed(holder.metrics);
+      }
 
       if (failed) {
+        if (PRIORITY_LANES) {
+          // The node has gone, so the connections to it on the other lanes are no use either. Only the ones opened
+          // alongside this one though, the node may already be back and have new ones
+          for (ConcurrentMap<ServerID, ConnectionHolder> lane: connections) {
+            ConnectionHolder other = lane.get(theServerID);
+            if (other != null && other != holder && other.primary == holder.primary) {
+              cleanupConnection(theServerID, other, false);
+            }
+          }
+        }
         cleanSubsForServerID(theServerID);
       }
     }
   }
 
-  private void sendRemote(final ServerID theServerID, final BaseMessage message) {
+  private void sendRemote(final ServerID theServerID, final BaseMessage<?> message, MessagePriority priority) {
     // We need to deal with the fact that connecting can take some time and is async, and we cannot
     // block to wait for it. So we add any sends to a pending list if not connected yet.
     // Once we connect we send them.
     // This can also be invoked concurrently from different threads, so it gets a little
     // tricky
-    ConnectionHolder holder = connections.get(theServerID);
+    getConnection(theServerID, PRIORITY_LANES ? priority.ordinal() : 0).writeMessage(message);
+  }
+
+  private ConnectionHolder getConnection(ServerID theServerID, int lane) {
+    ConcurrentMap<ServerID, ConnectionHolder> laneConnections = connections.get(lane);
+    ConnectionHolder holder = laneConnections.get(theServerID);
     if (holder == null) {
+      // Make sure there's a connection being pinged, to find out if the node goes
+      ConnectionHolder primary = lane == 0 ? null : getConnection(theServerID, 0);
       NetClient client = vertx.createNetClient();
       // When process is creating a lot of connections this can take some time
       // so increase the timeout
       client.setConnectTimeout(60 * 1000);
-      holder = new ConnectionHolder(client);
-      ConnectionHolder prevHolder = connections.putIfAbsent(theServerID, holder);
+      holder = new ConnectionHolder(client, theServerID, lane, primary);
+      ConnectionHolder prevHolder = laneConnections.putIfAbsent(theServerID, holder);
       if (prevHolder != null) {
         // Another one sneaked in
         holder = prevHolder;
       }
       else {
+        if (metrics != null) {
+          metrics.connectionOpened(holder.metrics);
+        }
         holder.connect(client, theServerID);
       }
     }
-    holder.writeMessage(message);
+    return holder;
   }
 
   private void schedulePing(final ConnectionHolder holder) {
@@ -879,7 +1252,8 @@ public class DefaultEventBus implements EventBus {
             cleanupConnection(holder.theServerID, holder, true);
           }
         });
-        new PingMessage(serverID).write(holder.socket);
+        holder.pingSent = System.nanoTime();
+        new PingMessage(serverID).write(holder.socket, null);
       }
     });
   }
@@ -889,35 +1263,104 @@ public class DefaultEventBus implements EventBus {
   }
 
   // Called when a message is incoming
-  private <T> void receiveMessage(BaseMessage msg, long timeoutID, Handler<AsyncResult<Message<T>>> asyncResultHandler,
-                                  Handler<Message<T>> replyHandler) {
+  private void receiveMessage(BaseMessage<?> msg, ReplyHandler<?> replyHandler) {
     msg.bus = this;
+    long replyID = replyID(msg.address);
+    if (replyID != -1) {
+      ReplyHandler<?> holder = removeReplyHandler(replyID);
+      if (holder != null) {
+        holder.deliver(msg);
+      }
+      return;
+    }
     final Handlers handlers = handlerMap.get(msg.address);
-    if (handlers != null) {
+    final List<Handlers> matches = wildcardMap.isEmpty() ? null : wildcardMap.match(msg.address);
+    if (handlers != null || matches != null) {
+      if (metrics != null) {
+        metrics.address(msg.address).messageReceived(serverID.equals(msg.sender));
+      }
       if (msg.send) {
-        //Choose one
-        HandlerHolder holder = handlers.choose();
+        //Choose one - handlers registered for the exact address come first, then the first matching pattern
+        Handlers chosen = handlers != null ? handlers : matches.get(0);
+        HandlerHolder<?> holder;
+        if (msg.routingKey != null) {
+          holder = chosen.choose(msg.routingKey);
+        } else {
+          if (isLeastOutstanding(msg.address)) {
+            holder = chosen.chooseLeastOutstanding();
+          } else {
+            holder = isLocalityAware(msg.address) ? chosen.chooseLocal() : chosen.choose();
+          }
+        }
         if (holder != null) {
           doReceive(msg, holder);
         }
       } else {
         // Publish
-        for (HandlerHolder holder: handlers.list) {
-          doReceive(msg, holder);
+        if (handlers != null) {
+          for (HandlerHolder<?> holder: handlers.list) {
+            doReceive(msg, holder);
+          }
+        }
+        if (matches != null) {
+          for (Handlers match: matches) {
+            for (HandlerHolder<?> holder: match.list) {
+              doReceive(msg, holder);
+            }
+          }
         }
       }
     } else {
       // no handlers
-      if (asyncResultHandler != null) {
-        sendNoHandlersFailure(asyncResultHandler);
-        if (timeoutID != -1) {
-          vertx.cancelTimer(timeoutID);
-        }
-        if (replyHandler != null) {
-          unregisterHandler(msg.replyAddress, replyHandler);
-        }
+      if (metrics != null) {
+        metrics.address(msg.address).noHandlers();
       }
+      if (replyHandler != null && replyHandler.asyncResultHandler != null &&
+          removeReplyHandler(replyHandler.id) != null) {
+        replyHandler.cancelTimeout();
+        sendNoHandlersFailure(replyHandler.asyncResultHandler);
+      }
+    }
+  }
+
+  private static List<ConcurrentMap<ServerID, ConnectionHolder>> connectionLanes() {
+    int lanes = PRIORITY_LANES ? MessagePriority.values().length : 1;
+    List<ConcurrentMap<ServerID, ConnectionHolder>> connections = new ArrayList<>(lanes);
+    for (int i = 0; i < lanes; i++) {
+      connections.add(new ConcurrentHashMap<ServerID, ConnectionHolder>());
     }
+    return connections;
+  }
+
+  private MessagePriority priority(String address) {
+    if (!priorities.isEmpty()) {
+      MessagePriority priority = priorities.get(address);
+      if (priority != null) {
+        return priority;
+      }
+    }
+    // Stream chunks are what the bulk lane is for
+    return address.startsWith(STREAM_ADDRESS_PREFIX) ? MessagePriority.BULK : MessagePriority.NORMAL;
+  }
+
+  private boolean isLeastOutstanding(String address) {
+    if (!leastOutstandingAddresses.isEmpty()) {
+      Boolean b = leastOutstandingAddresses.get(address);
+      if (b != null) {
+        return b;
+      }
+    }
+    return leastOutstanding;
+  }
+
+  private boolean isLocalityAware(String address) {
+    if (!localityAwareAddresses.isEmpty()) {
+      Boolean b = localityAwareAddresses.get(address);
+      if (b != null) {
+        return b;
+      }
+    }
+    return localityAware;
   }
 
   private <T> void sendNoHandlersFailure(final Handler<AsyncResult<Message<T>>> handler) {
@@ -930,22 +1373,39 @@ public class DefaultEventBus implements EventBus {
   }
 
 
-  private <T> void doReceive(final BaseMessage<T> msg, final HandlerHolder<T> holder) {
+  private <T> void doReceive(final BaseMessage<?> msg, final HandlerHolder<T> holder) {
     // Each handler gets a fresh copy
-    final Message<T> copied = msg.copy();
+    if (msg.expired()) {
+      if (holder.metrics != null) {
+        holder.metrics.messageExpired();
+      }
+      return;
+    }
+    // Handlers take whatever type of message is sent to them
+    @SuppressWarnings("unchecked")
+    final Message<T> copied = (Message<T>)msg.copy();
+    holder.outstanding.incrementAndGet();
+
+    if (holder.pending != null) {
+      if (!holder.enqueue(copied)) {
+        holder.outstanding.decrementAndGet();
+        // The holder is full and the policy is to refuse the new message
+        if (holder.policy == OverflowPolicy.REJECT && msg.replyAddress != null) {
+          sendReply(msg.sender, new ReplyFailureMessage(msg.replyAddress,
+              new ReplyException(ReplyFailure.OVERLOADED, "Handler has too many pending messages")), null);
+        }
+      }
+      return;
+    }
 
     holder.context.execute(new Runnable() {
       public void run() {
         // Need to check handler is still there - the handler might have been removed after the message were sent but
         // before it was received
-        try {
-          if (!holder.removed) {
-            holder.handler.handle(copied);
-          }
-        } finally {
-          if (holder.replyHandler) {
-            unregisterHandler(msg.address, holder.handler);
-          }
+        if (!holder.removed) {
+          holder.handle(copied);
+        } else {
+          holder.outstanding.decrementAndGet();
         }
       }
     });
@@ -957,26 +1417,111 @@ public class DefaultEventBus implements EventBus {
     }
   }
 
-  private static class HandlerHolder<T> {
+  private static class HandlerHolder<T> implements Runnable {
+    // Don't hog the context if messages arrive as fast as they're handled
+    static final int MAX_DRAIN = 64;
+
     final DefaultContext context;
     final Handler<Message<T>> handler;
-    final boolean replyHandler;
     final boolean localOnly;
-    final long timeoutID;
-    boolean removed;
-
-    HandlerHolder(Handler<Message<T>> handler, boolean replyHandler, boolean localOnly, DefaultContext context, long timeoutID) {
+    final int maxPending;
+    final OverflowPolicy policy;
+    // Only used when the number of pending messages is bounded
+    final Queue<Message<T>> queue;
+    final AtomicInteger pending;
+    final AtomicBoolean scheduled;
+    final EventBusAddressMXBeanImpl metrics;
+    // Messages delivered to the holder which the handler hasn't returned from yet
+    final AtomicInteger outstanding = new AtomicInteger();
+    volatile boolean removed;
+
+    HandlerHolder(Handler<Message<T>> handler, boolean localOnly, DefaultContext context, int maxPending,
+                  OverflowPolicy policy, EventBusAddressMXBeanImpl metrics) {
       this.context = context;
       this.handler = handler;
-      this.replyHandler = replyHandler;
       this.localOnly = localOnly;
-      this.timeoutID = timeoutID;
+      this.maxPending = maxPending;
+      this.policy = policy;
+      this.metrics = metrics;
+      if (maxPending != -1) {
+        queue = new ConcurrentLinkedQueue<>();
+        pending = new AtomicInteger();
+        scheduled = new AtomicBoolean();
+      } else {
+        queue = null;
+        pending = null;
+        scheduled = null;
+      }
+    }
+
+    void handle(Message<T> msg) {
+      if (((BaseMessage<T>)msg).expired()) {
+        // Expired while it was waiting to be handled
+        outstanding.decrementAndGet();
+        if (metrics != null) {
+          metrics.messageExpired();
+        }
+        return;
+      }
+      long start = metrics == null ? 0 : System.nanoTime();
+      try {
+        handler.handle(msg);
+      } finally {
+        outstanding.decrementAndGet();
+        if (metrics != null) {
+          metrics.handlerExecuted(System.nanoTime() - start);
+        }
+      }
+    }
+
+    // Returns false if the message was refused
+    boolean enqueue(Message<T> msg) {
+      if (pending.incrementAndGet() > maxPending) {
+        if (policy == OverflowPolicy.DROP_OLDEST) {
+          queue.add(msg);
+          if (queue.poll() != null) {
+            pending.decrementAndGet();
+            outstanding.decrementAndGet();
+          }
+        } else {
+          pending.decrementAndGet();
+          return false;
+        }
+      } else {
+        queue.add(msg);
+      }
+      if (scheduled.compareAndSet(false, true)) {
+        context.execute(this);
+      }
+      return true;
+    }
+
+    // Drains the pending messages on the handler's context
+    public void run() {
+      for (int i = 0; i < MAX_DRAIN; i++) {
+        Message<T> msg = queue.poll();
+        if (msg == null) {
+          scheduled.set(false);
+          // A message may have been added after the poll but before the flag was cleared
+          if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+            return;
+          }
+          continue;
+        }
+        pending.decrementAndGet();
+        if (!removed) {
+          handle(msg);
+        } else {
+          outstanding.decrementAndGet();
+        }
+      }
+      context.execute(this);
     }
 
     @Override
     public boolean equals(Object o) {
       if (this == o) return true;
-      HandlerHolder that = (HandlerHolder) o;
+      HandlerHolder<?> that = (HandlerHolder<?>) o;
       return handler.equals(that.handler);
     }
 
@@ -987,37 +1532,417 @@ public class DefaultEventBus implements EventBus {
 
   }
 
+  /*
+   * Reply handlers live in their own map keyed by a per-node sequence rather than in handlerMap. They're only ever
+   * called once, on the node that sent the message, so there's no need for a Handlers list, a close hook per handler
+   * or a cluster registration.
+   */
+  private class ReplyHandler<T> implements Runnable {
+    final long id;
+    final Handler<Message<T>> handler;
+    final Handler<AsyncResult<Message<T>>> asyncResultHandler;
+    final DefaultContext context;
+    final EventBusAddressMXBeanImpl metrics;
+    volatile ScheduledFuture<?> timeout;
+    // Null unless the context belongs to a deployment
+    ContextReplies replies;
+
+    ReplyHandler(long id, Handler<Message<T>> handler, Handler<AsyncResult<Message<T>>> asyncResultHandler,
+                 DefaultContext context, EventBusAddressMXBeanImpl metrics) {
+      this.id = id;
+      this.handler = handler;
+      this.asyncResultHandler = asyncResultHandler;
+      this.context = context;
+      this.metrics = metrics;
+    }
+
+    void cancelTimeout() {
+      ScheduledFuture<?> t = timeout;
+      if (t != null) {
+        t.cancel(false);
+      }
+    }
+
+    // The reply can be of any type, it's taken to be the one the sender asked for
+    @SuppressWarnings("unchecked")
+    void deliver(BaseMessage<?> msg) {
+      cancelTimeout();
+      final Message<T> copied = (Message<T>)msg.copy();
+      context.execute(new Runnable() {
+        public void run() {
+          if (asyncResultHandler == null) {
+            handler.handle(copied);
+          } else if (copied instanceof ReplyFailureMessage) {
+            asyncResultHandler.handle(new DefaultFutureResult<Message<T>>(((ReplyFailureMessage)copied).body()));
+          } else {
+            asyncResultHandler.handle(new DefaultFutureResult<>(copied));
+          }
+        }
+      });
+    }
+
+    // Called on the event loop when the timeout fires
+    public void run() {
+      if (removeReplyHandler(id) == this) {
+        if (metrics != null) {
+          metrics.replyTimeout();
+        }
+        context.execute(new Runnable() {
+          public void run() {
+            log.warn("Message reply handler timed out as no reply was received - it will be removed");
+            if (asyncResultHandler != null) {
+              asyncResultHandler.handle(new DefaultFutureResult<Message<T>>(new ReplyException(ReplyFailure.TIMEOUT, "Timed out waiting for reply")));
+            }
+          }
+        });
+      }
+    }
+  }
+
   private class ConnectionHolder {
     final NetClient client;
     volatile NetSocket socket;
-    final Queue<BaseMessage> pending = new ConcurrentLinkedQueue<>();
+    final Queue<BaseMessage<?>> pending = new ConcurrentLinkedQueue<>();
+    // Guarded by the holder's lock
+    long pendingBytes;
+    boolean overflowed;
+    // Set once the pending limit is reached with spilling enabled, until everything spilled has been replayed.
+    // Frames are queued for the spill writer, which does the file I/O on the background pool without the lock
+    boolean spilling;
+    SpillFile spill;
+    final Queue<Buffer> spillQueue = new ArrayDeque<>();
+    boolean spillWriting;
+    // The replay ran out of frames while the writer was still appending, so the writer restarts it
+    boolean replayWaiting;
     volatile boolean connected;
     long timeoutID = -1;
     long pingTimeoutID = -1;
+    volatile long pingSent;
     ServerID theServerID;
+    final int lane;
+    // The pinged connection on lane 0 this one was opened alongside, itself if it's on lane 0. If the node goes,
+    // the connections which share it are closed together
+    final ConnectionHolder primary;
+    final EventBusConnectionMXBeanImpl metrics;
+    // Only used when write coalescing is enabled. Holds frames rather than messages so they're encoded by the
+    // sending thread, not all at once by the event loop of each connection the message goes to
+    final Queue<Buffer> batch = new ConcurrentLinkedQueue<>();
+    final AtomicInteger batchSize = new AtomicInteger();
+    final AtomicBoolean flushScheduled = new AtomicBoolean();
+    final Runnable flushTask = new Runnable() {
+      public void run() {
+        flushBatch();
+      }
+    };
 
-    private ConnectionHolder(NetClient client) {
+    final Handler<Void> replayHandler = new VoidHandler() {
+      public void handle() {
+        // So it can't start a second read while one is in flight
+        socket.drainHandler(null);
+        replaySpill();
+      }
+    };
+    final Runnable replayTask = new Runnable() {
+      public void run() {
+        replaySpill();
+      }
+    };
+    final Runnable spillWriter = new Runnable() {
+      public void run() {
+        writeSpill();
+      }
+    };
+    final Runnable spillReader = new Runnable() {
+      public void run() {
+        readSpill();
+      }
+    };
+
+    private ConnectionHolder(NetClient client, ServerID theServerID, int lane, ConnectionHolder primary) {
       this.client = client;
+      this.theServerID = theServerID;
+      this.lane = lane;
+      this.primary = primary == null ? this : primary;
+      if (DefaultEventBus.this.metrics == null) {
+        this.metrics = null;
+      } else if (PRIORITY_LANES) {
+        String laneName = MessagePriority.values()[lane].name().toLowerCase();
+        this.metrics = new EventBusConnectionMXBeanImpl(theServerID, laneName);
+      } else {
+        this.metrics = new EventBusConnectionMXBeanImpl(theServerID);
+      }
     }
 
-    void writeMessage(BaseMessage message) {
+    void writeMessage(BaseMessage<?> message) {
       if (connected) {
-        message.write(socket);
+        write(message);
       } else {
+        boolean queued = true;
         synchronized (this) {
           if (connected) {
-            message.write(socket);
+            write(message);
+          } else {
+            queued = enqueue(message);
+          }
+        }
+        if (!queued) {
+          if (metrics != null) {
+            metrics.messageRejected();
+          }
+          if (message.replyAddress != null) {
+            sendReply(serverID, new ReplyFailureMessage(message.replyAddress,
+                new ReplyException(ReplyFailure.OVERLOADED, "Too many messages pending for " + theServerID)), null);
+          }
+        }
+      }
+    }
+
+    // Called with the lock held. Once anything has been spilled everything else is too, so the order is kept
+    private boolean enqueue(BaseMessage<?> message) {
+      Buffer frame = message.encoded(compression);
+      if (!spilling && maxPendingBytes >= 0 && pendingBytes + frame.length() > maxPendingBytes) {
+        if (!overflowed) {
+          overflowed = true;
+          log.warn("Messages pending for " + theServerID + " have reached " + maxPendingBytes + " bytes, " +
+              (spillPending ? "spilling to " + spillDir : "failing further messages"));
+        }
+        if (!spillPending) {
+          return false;
+        }
+        spilling = true;
+      }
+      if (spilling) {
+        spillQueue.add(frame);
+        if (!spillWriting) {
+          spillWriting = true;
+          vertx.getBackgroundPool().execute(spillWriter);
+        }
+      } else {
+        pending.add(message);
+        pendingBytes += frame.length();
+        if (metrics != null) {
+          metrics.messageQueued();
+          metrics.pendingBytes(pendingBytes);
+        }
+      }
+      return true;
+    }
+
+    // Runs on the background pool, only one at a time for each holder, until there's nothing left to append
+    private void writeSpill() {
+      while (true) {
+        List<Buffer> frames;
+        SpillFile file;
+        synchronized (this) {
+          if (!spilling || spillQueue.isEmpty()) {
+            spillWriting = false;
+            if (!spilling && spill != null) {
+              // Discarded while we were appending
+              spill.delete();
+              spill = null;
+            }
+            if (replayWaiting) {
+              replayWaiting = false;
+              ((ConnectionBase)socket).eventLoop().execute(replayTask);
+            }
+            return;
+          }
+          frames = new ArrayList<>(spillQueue);
+          spillQueue.clear();
+          file = spill;
+        }
+        try {
+          if (file == null) {
+            file = new SpillFile(spillDir, theServerID);
+            synchronized (this) {
+              spill = file;
+            }
+          }
+          for (Buffer frame: frames) {
+            file.append(frame);
+          }
+          if (metrics != null) {
+            metrics.spilledBytes(file.remaining());
+          }
+        } catch (IOException e) {
+          // The messages can't be sent in order any more, so drop the connection along with them
+          log.error("Failed to spill messages for " + theServerID, e);
+          cleanupConnection(theServerID, this, false);
+        }
+      }
+    }
+
+    // Runs on the socket's event loop. Until everything spilled has been written the connection isn't marked as
+    // connected, so new messages are spilled behind the ones being replayed. The file is read on the background pool
+    // a chunk at a time, and each chunk is handed back to the event loop to be written. Only one read is in flight at
+    // a time, the next one is started once its chunk has been written
+    private void replaySpill() {
+      synchronized (this) {
+        if (!spilling) {
+          // Discarded
+          return;
+        }
+      }
+      if (socket.writeQueueFull()) {
+        socket.drainHandler(replayHandler);
+      } else {
+        vertx.getBackgroundPool().execute(spillReader);
+      }
+    }
+
+    // Runs on the background pool
+    private void readSpill() {
+      SpillFile file;
+      synchronized (this) {
+        if (!spilling) {
+          return;
+        }
+        file = spill;
+      }
+      try {
+        while (true) {
+          final Buffer chunk = file == null ? null : file.read(SPILL_CHUNK_SIZE);
+          if (chunk != null) {
+            final SpillFile read = file;
+            ((ConnectionBase)socket).eventLoop().execute(new Runnable() {
+              public void run() {
+                writeReplayed(read, chunk);
+              }
+            });
+            return;
+          }
+          synchronized (this) {
+            if (!spilling) {
+              return;
+            }
+            if (spillWriting) {
+              replayWaiting = true;
+              return;
+            }
+            if (file != spill || (file != null && file.remaining() > 0)) {
+              // The writer added some more before it finished
+              file = spill;
+              continue;
+            }
+            // Everything read has already been written, so new messages can go straight to the socket
+            if (file != null) {
+              file.delete();
+            }
+            spill = null;
+            spilling = false;
+            overflowed = false;
+            connected = true;
+            if (metrics != null) {
+              metrics.spilledBytes(0);
+            }
+            return;
+          }
+        }
+      } catch (IOException e) {
+        synchronized (this) {
+          if (!spilling) {
+            // The file was deleted under us
+            return;
+          }
+        }
+        log.error("Failed to replay messages spilled for " + theServerID, e);
+        cleanupConnection(theServerID, this, false);
+      }
+    }
+
+    // Runs on the socket's event loop
+    private void writeReplayed(SpillFile file, Buffer chunk) {
+      synchronized (this) {
+        if (!spilling) {
+          // Discarded
+          return;
+        }
+      }
+      socket.write(chunk);
+      if (metrics != null) {
+        metrics.bytesWritten(chunk.length());
+        metrics.spilledBytes(file.remaining());
+      }
+      replaySpill();
+    }
+
+    synchronized void discardSpill() {
+      spilling = false;
+      spillQueue.clear();
+      replayWaiting = false;
+      // If the writer is busy with the file it deletes it when it's done
+      if (spill != null && !spillWriting) {
+        spill.delete();
+        spill = null;
+      }
+    }
+
+    private void write(BaseMessage<?> message) {
+      if (coalesceWrites) {
+        batch.add(message.encoded(compression));
+        if (metrics != null) {
+          metrics.messageQueued();
+        }
+        ConnectionBase conn = (ConnectionBase)socket;
+        int size = batchSize.incrementAndGet();
+        if (flushScheduled.compareAndSet(false, true)) {
+          if (COALESCE_MAX_DELAY > 0) {
+            conn.eventLoop().schedule(flushTask, COALESCE_MAX_DELAY, TimeUnit.MILLISECONDS);
           } else {
-            pending.add(message);
+            // Runs after the tasks already queued on the event loop, so everything written in this tick
+            // goes out in a single flush
+            conn.eventLoop().execute(flushTask);
           }
+        } else if (size == COALESCE_MAX_BATCH) {
+          // Batch is full - don't wait for the delay
+          conn.eventLoop().execute(flushTask);
+        }
+      } else {
+        message.write(socket, compression);
+        if (metrics != null) {
+          metrics.bytesWritten(message.encoded(compression).length());
         }
       }
     }
 
-    synchronized void connected(final ServerID theServerID, NetSocket socket) {
+    // Always runs on the socket's event loop
+    private void flushBatch() {
+      flushScheduled.set(false);
+      ConnectionBase conn = (ConnectionBase)socket;
+      int count = 0;
+      Buffer encoded;
+      while ((encoded = batch.poll()) != null) {
+        batchSize.decrementAndGet();
+        conn.queueForWrite(encoded.getByteBuf());
+        if (metrics != null) {
+          metrics.messageDequeued();
+          metrics.bytesWritten(encoded.length());
+        }
+        if (++count == COALESCE_MAX_BATCH) {
+          conn.flush();
+          count = 0;
+        }
+      }
+      if (count > 0) {
+        conn.flush();
+      }
+    }
+
+    void connected(final ServerID theServerID, NetSocket socket) {
+      boolean replay;
+      synchronized (this) {
+        replay = setConnected(theServerID, socket);
+      }
+      // Not under the lock, so senders aren't held up while it starts
+      if (replay) {
+        replaySpill();
+      }
+    }
+
+    // Called with the lock held. Returns true if there are spilled messages to replay before it's connected
+    private boolean setConnected(final ServerID theServerID, NetSocket socket) {
       this.socket = socket;
       this.theServerID = theServerID;
-      connected = true;
       socket.exceptionHandler(new Handler<Throwable>() {
         public void handle(Throwable t) {
           cleanupConnection(theServerID, ConnectionHolder.this, true);
@@ -1032,15 +1957,35 @@ public class DefaultEventBus implements EventBus {
         public void handle(Buffer data) {
           // Got a pong back
           vertx.cancelTimer(timeoutID);
+          if (metrics != null) {
+            metrics.pingRoundTrip(System.nanoTime() - pingSent);
+          }
           schedulePing(ConnectionHolder.this);
         }
       });
-      // Start a pinger
-      schedulePing(ConnectionHolder.this);
-      for (BaseMessage message : pending) {
-        message.write(socket);
+      if (lane == 0) {
+        // Start a pinger
+        schedulePing(ConnectionHolder.this);
+      }
+      // Written straight away rather than batched so they can't be overtaken by any spilled messages
+      for (BaseMessage<?> message : pending) {
+        message.write(socket, compression);
+        if (metrics != null) {
+          metrics.messageDequeued();
+          metrics.bytesWritten(message.encoded(compression).length());
+        }
       }
       pending.clear();
+      pendingBytes = 0;
+      if (metrics != null) {
+        metrics.pendingBytes(0);
+      }
+      if (spilling) {
+        return true;
+      }
+      overflowed = false;
+      connected = true;
+      return false;
     }
 
     void connect(NetClient client, final ServerID theServerID) {
@@ -1058,9 +2003,103 @@ public class DefaultEventBus implements EventBus {
 
   private static class Handlers {
 
-    final List<HandlerHolder> list = new CopyOnWriteArrayList<>();
+    final boolean wildcard;
+    final List<HandlerHolder<?>> list = new CopyOnWriteArrayList<>();
     final AtomicInteger pos = new AtomicInteger(0);
-    HandlerHolder choose() {
+    final AtomicInteger localPos = new AtomicInteger(0);
+    final AtomicInteger leastOutstandingPos = new AtomicInteger(0);
+    // Only created once a message is sent with a routing key, then kept in step with the list
+    private volatile HashRing<HandlerHolder<?>> ring;
+
+    Handlers(boolean wildcard) {
+      this.wildcard = wildcard;
+    }
+
+    void add(HandlerHolder<?> holder) {
+      list.add(holder);
+      synchronized (list) {
+        if (ring != null) {
+          ring.add(holder, System.identityHashCode(holder));
+        }
+      }
+    }
+
+    void remove(int index) {
+      HandlerHolder<?> holder = list.remove(index);
+      synchronized (list) {
+        if (ring != null) {
+          ring.remove(holder);
+        }
+      }
+    }
+
+    HandlerHolder<?> choose(String routingKey) {
+      HashRing<HandlerHolder<?>> r = ring;
+      if (r == null) {
+        synchronized (list) {
+          if (ring == null) {
+            r = new HashRing<>();
+            for (HandlerHolder<?> holder: list) {
+              r.add(holder, System.identityHashCode(holder));
+            }
+            ring = r;
+          }
+          r = ring;
+        }
+      }
+      return r.choose(routingKey);
+    }
+
+    // Prefers a handler whose event loop is the current thread, so delivering doesn't mean a hop to another thread.
+    // Several of them are taken in turn. Falls back to round robin if there aren't any
+    HandlerHolder<?> chooseLocal() {
+      int size = list.size();
+      if (size > 1) {
+        int start = localPos.getAndIncrement() & Integer.MAX_VALUE;
+        try {
+          for (int i = 0; i < size; i++) {
+            HandlerHolder<?> holder = list.get((start + i) % size);
+            if (holder.context instanceof EventLoopContext && holder.context.getEventLoop().inEventLoop()) {
+              return holder;
+            }
+          }
+        } catch (IndexOutOfBoundsException e) {
+          // Can happen if a handler is removed while we're looking
+        }
+      }
+      return choose();
+    }
+
+    // Several holders may have the fewest, they're taken in turn by starting the search at a different one each time
+    HandlerHolder<?> chooseLeastOutstanding() {
+      int size = list.size();
+      if (size > 1) {
+        int start = leastOutstandingPos.getAndIncrement() & Integer.MAX_VALUE;
+        HandlerHolder<?> least = null;
+        int min = Integer.MAX_VALUE;
+        try {
+          for (int i = 0; i < size; i++) {
+            HandlerHolder<?> holder = list.get((start + i) % size);
+            int outstanding = holder.outstanding.get();
+            if (outstanding < min) {
+              least = holder;
+              min = outstanding;
+              if (min == 0) {
+                break;
+              }
+            }
+          }
+        } catch (IndexOutOfBoundsException e) {
+          // Can happen if a handler is removed while we're looking
+        }
+        if (least != null) {
+          return least;
+        }
+      }
+      return choose();
+    }
+
+    HandlerHolder<?> choose() {
       while (true) {
         int size = list.size();
         if (size == 0) {
@@ -1080,6 +2119,31 @@ public class DefaultEventBus implements EventBus {
     }
   }
 
+  /*
+   * The reply handlers still waiting for a reply from a context. When the context is closed on undeploy they're
+   * removed, and their timeouts cancelled, so they don't run on a closed context
+   */
+  private class ContextReplies implements Closeable {
+    final DefaultContext context;
+    final Set<ReplyHandler<?>> handlers = Collections.newSetFromMap(new ConcurrentHashMap<ReplyHandler<?>, Boolean>());
+
+    private ContextReplies(DefaultContext context) {
+      this.context = context;
+    }
+
+    // Called by context on undeploy
+    public void close(Handler<AsyncResult<Void>> doneHandler) {
+      contextReplies.remove(context, this);
+      for (ReplyHandler<?> holder: handlers) {
+        if (replyHandlers.remove(holder.id) == holder) {
+          holder.cancelTimeout();
+        }
+      }
+      handlers.clear();
+      doneHandler.handle(new DefaultFutureResult<>((Void)null));
+    }
+  }
+
   private class HandlerEntry implements Closeable {
     final String address;
     final Handler<? extends Message> handler;
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus.impl;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.VertxException;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.eventbus.EventBusReadStream;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.eventbus.ReplyException;
+import org.vertx.java.core.eventbus.ReplyFailure;
+import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Receives the chunks sent by a {@link DefaultEventBusWriteStream}. The handler is registered at an address of its
+ * own for the lifetime of the stream. Chunks are only acknowledged once they've been handled, so while the stream
+ * is paused the number of queued chunks is bounded by the sender's write queue size.<p>
+ * If the sender goes away without ending the stream, e.g. because its node died, the handler would be left
+ * registered forever, so streams which go idle are closed.<p>
+ * The end of the stream says how many chunks were sent. If any of them weren't received, e.g. because they failed
+ * to reach this node, the stream fails instead of ending.
+ */
+class DefaultEventBusReadStream implements EventBusReadStream, Handler<Message<Object>> {
+
+  private static final Logger log = LoggerFactory.getLogger(DefaultEventBusReadStream.class);
+
+  private final VertxInternal vertx;
+  private final EventBus bus;
+  private final String address;
+  final String dataAddress;
+  // Read when the stream is opened rather than once, so it can be changed at runtime
+  private final long idleTimeout = Long.getLong("vertx.eventbus.stream.idletimeout", 5 * 60 * 1000);
+  private final Queue<Message<Object>> pending = new ArrayDeque<>();
+  private long received;
+  private boolean paused;
+  private boolean closed;
+  // Whether anything has been received since the idle timer last fired
+  private boolean active;
+  private long idleTimerID = -1;
+  private Handler<Buffer> dataHandler;
+  private Handler<Void> endHandler;
+  private Handler<Throwable> exceptionHandler;
+
+  DefaultEventBusReadStream(VertxInternal vertx, EventBus bus, String address, String dataAddress) {
+    this.vertx = vertx;
+    this.bus = bus;
+    this.address = address;
+    this.dataAddress = dataAddress;
+  }
+
+  // Called on the stream's context once the handler has been registered
+  void start() {
+    if (idleTimeout > 0) {
+      idleTimerID = vertx.setPeriodic(idleTimeout, new Handler<Long>() {
+        public void handle(Long timerID) {
+          if (active || paused) {
+            active = false;
+          } else {
+            close(new ReplyException(ReplyFailure.TIMEOUT, "Nothing received on stream from " + address + " for " +
+                idleTimeout + " ms"));
+          }
+        }
+      });
+    }
+  }
+
+  private void close(Throwable cause) {
+    closed = true;
+    if (idleTimerID != -1) {
+      vertx.cancelTimer(idleTimerID);
+    }
+    bus.unregisterHandler(dataAddress, this);
+    pending.clear();
+    if (cause != null) {
+      if (exceptionHandler != null) {
+        exceptionHandler.handle(cause);
+      } else {
+        log.error("Stream from " + address + " failed", cause);
+      }
+    }
+  }
+
+  @Override
+  public String address() {
+    return address;
+  }
+
+  @Override
+  public void handle(Message<Object> msg) {
+    if (closed) {
+      return;
+    }
+    active = true;
+    if (paused || !pending.isEmpty()) {
+      pending.add(msg);
+    } else {
+      deliver(msg);
+    }
+  }
+
+  private void deliver(Message<Object> msg) {
+    Object body = msg.body();
+    if (body instanceof Buffer) {
+      Buffer data = (Buffer)body;
+      received++;
+      if (dataHandler != null) {
+        dataHandler.handle(data);
+      }
+      msg.reply(data.length());
+    } else {
+      // The end of the stream, with the number of chunks that were sent
+      long sent = (Long)body;
+      if (sent != received) {
+        String error = "Stream from " + address + " lost " + (sent - received) + " of " + sent + " chunks";
+        msg.fail(0, error);
+        close(new VertxException(error));
+      } else {
+        msg.reply(received);
+        close(null);
+        if (endHandler != null) {
+          endHandler.handle(null);
+        }
+      }
+    }
+  }
+
+  @Override
+  public EventBusReadStream dataHandler(Handler<Buffer> handler) {
+    this.dataHandler = handler;
+    return this;
+  }
+
+  @Override
+  public EventBusReadStream pause() {
+    paused = true;
+    return this;
+  }
+
+  @Override
+  public EventBusReadStream resume() {
+    paused = false;
+    Message<Object> msg;
+    while (!paused && !closed && (msg = pending.poll()) != null) {
+      deliver(msg);
+    }
+    return this;
+  }
+
+  @Override
+  public EventBusReadStream endHandler(Handler<Void> handler) {
+    this.endHandler = handler;
+    return this;
+  }
+
+  @Override
+  public EventBusReadStream exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+}
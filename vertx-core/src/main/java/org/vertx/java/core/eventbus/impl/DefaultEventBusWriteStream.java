@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus.impl;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.eventbus.EventBusWriteStream;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.eventbus.MessagePriority;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+/**
+ * Sends the data as chunks to the address the receiving stream registered. Each chunk is acknowledged with its size
+ * once it has been handled, which is what frees up space in the write queue. The end of the stream is marked by
+ * the number of chunks sent, which the reader checks against what it got. Chunks are sent without a deadline, so
+ * a reader that falls behind never drops one. The reply timeout only applies to the ack.<p>
+ * Chunks go on the bulk lane unless another priority is set, which is kept for the data address until the end of the
+ * stream has been acknowledged.
+ */
+class DefaultEventBusWriteStream implements EventBusWriteStream {
+
+  private static final Logger log = LoggerFactory.getLogger(DefaultEventBusWriteStream.class);
+
+  // Small enough that a large write doesn't hold up other messages on a cluster connection for long
+  static final int CHUNK_SIZE = Integer.getInteger("vertx.eventbus.stream.chunksize", 64 * 1024);
+
+  private final EventBus bus;
+  private final String address;
+  private final String dataAddress;
+  private int maxSize = 1024 * 1024;
+  private int outstanding;
+  private long chunks;
+  private boolean ended;
+  private boolean failed;
+  private boolean prioritySet;
+  private Handler<Void> drainHandler;
+  private Handler<Throwable> exceptionHandler;
+
+  DefaultEventBusWriteStream(EventBus bus, String address, String dataAddress) {
+    this.bus = bus;
+    this.address = address;
+    this.dataAddress = dataAddress;
+  }
+
+  @Override
+  public String address() {
+    return address;
+  }
+
+  @Override
+  public EventBusWriteStream setPriority(MessagePriority priority) {
+    if (chunks > 0 || ended) {
+      throw new IllegalStateException("Priority can't be changed once data has been written");
+    }
+    bus.setPriority(dataAddress, priority);
+    prioritySet = priority != null;
+    return this;
+  }
+
+  @Override
+  public EventBusWriteStream write(Buffer data) {
+    if (ended) {
+      throw new IllegalStateException("Stream has ended");
+    }
+    int length = data.length();
+    if (length <= CHUNK_SIZE) {
+      send(data);
+    } else {
+      for (int pos = 0; pos < length; pos += CHUNK_SIZE) {
+        send(data.getBuffer(pos, Math.min(length, pos + CHUNK_SIZE)));
+      }
+    }
+    return this;
+  }
+
+  private void send(Buffer chunk) {
+    final int length = chunk.length();
+    outstanding += length;
+    chunks++;
+    bus.sendWithTimeout(dataAddress, chunk, bus.getDefaultReplyTimeout(), new Handler<AsyncResult<Message<Integer>>>() {
+      public void handle(AsyncResult<Message<Integer>> ack) {
+        if (ack.failed()) {
+          failed(ack.cause());
+        }
+        // A failed chunk is no longer outstanding either, or the write queue would stay full
+        acked(length);
+      }
+    });
+  }
+
+  private void failed(Throwable cause) {
+    if (!failed) {
+      // Only report the first one, the rest of the chunks will usually fail for the same reason
+      failed = true;
+      if (exceptionHandler != null) {
+        exceptionHandler.handle(cause);
+      } else {
+        log.error("Failed to stream to " + address, cause);
+      }
+    }
+  }
+
+  private void acked(int length) {
+    boolean wasFull = outstanding > maxSize / 2;
+    outstanding -= length;
+    if (wasFull && outstanding <= maxSize / 2 && drainHandler != null) {
+      drainHandler.handle(null);
+    }
+  }
+
+  @Override
+  public void end() {
+    if (!ended) {
+      ended = true;
+      // Carries the number of chunks, so the reader can tell if any went missing
+      bus.sendWithTimeout(dataAddress, chunks, bus.getDefaultReplyTimeout(), new Handler<AsyncResult<Message<Long>>>() {
+        public void handle(AsyncResult<Message<Long>> ack) {
+          if (ack.failed()) {
+            failed(ack.cause());
+          }
+          if (prioritySet) {
+            bus.setPriority(dataAddress, null);
+          }
+        }
+      });
+    }
+  }
+
+  @Override
+  public EventBusWriteStream setWriteQueueMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return outstanding >= maxSize;
+  }
+
+  @Override
+  public EventBusWriteStream drainHandler(Handler<Void> handler) {
+    this.drainHandler = handler;
+    return this;
+  }
+
+  @Override
+  public EventBusWriteStream exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+}
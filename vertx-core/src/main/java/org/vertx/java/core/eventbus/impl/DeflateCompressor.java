@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus.impl;
+
+import org.vertx.java.core.eventbus.MessageCompressor;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The default compressor - raw deflate at the fastest level. Each thread has its own deflater and inflater, which
+ * are reset rather than recreated for each frame.
+ */
+class DeflateCompressor implements MessageCompressor {
+
+  private static final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+    @Override
+    protected Deflater initialValue() {
+      return new Deflater(Deflater.BEST_SPEED, true);
+    }
+  };
+
+  private static final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+    @Override
+    protected Inflater initialValue() {
+      return new Inflater(true);
+    }
+  };
+
+  @Override
+  public int compress(byte[] src, int srcOff, int len, byte[] dst, int dstOff, int dstLen) {
+    Deflater deflater = deflaters.get();
+    try {
+      deflater.setInput(src, srcOff, len);
+      deflater.finish();
+      int written = deflater.deflate(dst, dstOff, dstLen);
+      return deflater.finished() ? written : -1;
+    } finally {
+      deflater.reset();
+    }
+  }
+
+  @Override
+  public void decompress(byte[] src, int srcOff, int len, byte[] dst, int dstOff, int dstLen) {
+    Inflater inflater = inflaters.get();
+    try {
+      inflater.setInput(src, srcOff, len);
+      // Checks the count rather than finished(), which raw inflate may not report without an extra byte of input
+      if (inflater.inflate(dst, dstOff, dstLen) != dstLen) {
+        throw new IllegalStateException("Compressed frame is truncated");
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Compressed frame is corrupt", e);
+    } finally {
+      inflater.reset();
+    }
+  }
+}
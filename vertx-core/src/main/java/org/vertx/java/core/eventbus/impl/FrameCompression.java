@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.eventbus.MessageCompressor;
+import org.vertx.java.core.impl.management.EventBusMXBeanImpl;
+
+/**
+ * Compresses frames written to other nodes and decompresses the ones read from them.<p>
+ * A compressed frame has {@link MessageFactory#FLAG_COMPRESSED} set in its type byte, which is followed by the
+ * uncompressed length of the rest of the frame and then the compressed data.
+ */
+class FrameCompression {
+
+  private static final MessageCompressor DEFAULT_COMPRESSOR = new DeflateCompressor();
+  // Frames larger than this are compressed into a buffer of their own rather than keeping one that size per thread
+  private static final int MAX_SCRATCH = 1024 * 1024;
+
+  private static final ThreadLocal<byte[]> scratch = new ThreadLocal<byte[]>() {
+    @Override
+    protected byte[] initialValue() {
+      return new byte[8 * 1024];
+    }
+  };
+
+  volatile int threshold = Integer.getInteger("vertx.cluster.compression.threshold", -1);
+  volatile MessageCompressor compressor = DEFAULT_COMPRESSOR;
+  // Null unless management is enabled
+  volatile EventBusMXBeanImpl metrics;
+
+  void setCompressor(MessageCompressor compressor) {
+    this.compressor = compressor == null ? DEFAULT_COMPRESSOR : compressor;
+  }
+
+  /*
+   * Takes a whole frame, including the length, and returns it compressed if it's over the threshold and compressing
+   * it makes it smaller
+   */
+  Buffer compress(Buffer frame) {
+    int length = frame.length() - 5;
+    int threshold = this.threshold;
+    if (threshold < 0 || length < threshold || length <= 4) {
+      return frame;
+    }
+    long start = System.nanoTime();
+    ByteBuf buf = frame.getByteBuf();
+    byte[] src;
+    int srcOff;
+    if (buf.hasArray()) {
+      src = buf.array();
+      srcOff = buf.arrayOffset() + buf.readerIndex() + 5;
+    } else {
+      src = frame.getBytes(5, frame.length());
+      srcOff = 0;
+    }
+    byte[] dst = scratch(length);
+    // Not worth it unless it saves more than the extra length field
+    int written = compressor.compress(src, srcOff, length, dst, 0, length - 4);
+    Buffer compressed;
+    if (written < 0) {
+      compressed = frame;
+    } else {
+      compressed = new Buffer(9 + written);
+      compressed.appendInt(5 + written);
+      compressed.appendByte((byte)(frame.getByte(4) | MessageFactory.FLAG_COMPRESSED));
+      compressed.appendInt(length);
+      compressed.appendBytes(dst, 0, written);
+    }
+    EventBusMXBeanImpl metrics = this.metrics;
+    if (metrics != null) {
+      metrics.frameCompressed(length, compressed.length() - 5, System.nanoTime() - start);
+    }
+    return compressed;
+  }
+
+  /*
+   * Takes a compressed frame as read, without the length, and returns the uncompressed one
+   */
+  Buffer decompress(Buffer buff) {
+    long start = System.nanoTime();
+    int length = buff.getInt(1);
+    byte[] dst = new byte[1 + length];
+    dst[0] = (byte)(buff.getByte(0) & ~MessageFactory.FLAG_COMPRESSED);
+    ByteBuf buf = buff.getByteBuf();
+    if (buf.hasArray()) {
+      compressor.decompress(buf.array(), buf.arrayOffset() + buf.readerIndex() + 5, buff.length() - 5, dst, 1, length);
+    } else {
+      byte[] src = buff.getBytes(5, buff.length());
+      compressor.decompress(src, 0, src.length, dst, 1, length);
+    }
+    EventBusMXBeanImpl metrics = this.metrics;
+    if (metrics != null) {
+      metrics.frameDecompressed(System.nanoTime() - start);
+    }
+    return new Buffer(Unpooled.wrappedBuffer(dst));
+  }
+
+  private static byte[] scratch(int length) {
+    if (length > MAX_SCRATCH) {
+      return new byte[length];
+    }
+    byte[] bytes = scratch.get();
+    if (bytes.length < length) {
+      bytes = new byte[Math.min(Math.max(length, bytes.length * 2), MAX_SCRATCH)];
+      scratch.set(bytes);
+    }
+    return bytes;
+  }
+}
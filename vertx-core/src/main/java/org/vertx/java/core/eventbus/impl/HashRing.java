@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus.impl;
+
+import java.util.Arrays;
+
+/**
+ * Consistent hash ring used to route messages with the same key to the same member.<p>
+ * Each member is placed at a number of points on the ring, derived from its seed, and a key belongs to the member
+ * with the first point at or after the key's hash. Adding or removing a member only moves the keys falling between
+ * its points and the preceding ones, roughly 1/n of them, and members with the same seeds give the same ring on every
+ * node.<p>
+ * Members are compared by identity rather than equals, so members which are equal but were added separately each
+ * get their own points - a handler registered twice is two members.<p>
+ * Lookups read an immutable snapshot so they don't lock. Changes copy it, which is fine as they're rare compared to
+ * lookups.
+ */
+class HashRing<T> {
+
+  private static final int POINTS = Integer.getInteger("vertx.eventbus.ring.points", 64);
+
+  private volatile Snapshot<T> snapshot = new Snapshot<>(new int[0], new Object[0]);
+
+  /**
+   * Adds the member, unless that instance is already there
+   */
+  synchronized void add(T member, int seed) {
+    Snapshot<T> current = snapshot;
+    for (Object m: current.members) {
+      if (m == member) {
+        return;
+      }
+    }
+    int size = current.points.length;
+    int[] points = Arrays.copyOf(current.points, size + POINTS);
+    Object[] members = Arrays.copyOf(current.members, size + POINTS);
+    for (int i = 0; i < POINTS; i++) {
+      points[size + i] = mix(seed * 31 + i);
+      members[size + i] = member;
+    }
+    sort(points, members);
+    snapshot = new Snapshot<>(points, members);
+  }
+
+  synchronized void remove(T member) {
+    Snapshot<T> current = snapshot;
+    int size = current.points.length;
+    int[] points = new int[size];
+    Object[] members = new Object[size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (current.members[i] != member) {
+        points[count] = current.points[i];
+        members[count++] = current.members[i];
+      }
+    }
+    if (count != size) {
+      snapshot = new Snapshot<>(Arrays.copyOf(points, count), Arrays.copyOf(members, count));
+    }
+  }
+
+  boolean isEmpty() {
+    return snapshot.points.length == 0;
+  }
+
+  /**
+   * @return the member the key belongs to, or null if there are none
+   */
+  @SuppressWarnings("unchecked")
+  T choose(String key) {
+    Snapshot<T> current = snapshot;
+    int size = current.points.length;
+    if (size == 0) {
+      return null;
+    }
+    int pos = Arrays.binarySearch(current.points, mix(key.hashCode()));
+    if (pos < 0) {
+      pos = -pos - 1;
+      if (pos == size) {
+        // Wrap around
+        pos = 0;
+      }
+    }
+    return (T)current.members[pos];
+  }
+
+  // Spreads similar hashes (host names, keys differing in the last character) around the ring. Murmur3 finaliser
+  static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  // Sorts the points keeping the members alongside
+  private static void sort(int[] points, Object[] members) {
+    long[] keyed = new long[points.length];
+    for (int i = 0; i < points.length; i++) {
+      keyed[i] = ((long)points[i] << 32) | i;
+    }
+    Arrays.sort(keyed);
+    Object[] copy = members.clone();
+    for (int i = 0; i < keyed.length; i++) {
+      points[i] = (int)(keyed[i] >> 32);
+      members[i] = copy[(int)keyed[i]];
+    }
+  }
+
+  private static class Snapshot<T> {
+    final int[] points;
+    final Object[] members;
+
+    Snapshot(int[] points, Object[] members) {
+      this.points = points;
+      this.members = members;
+    }
+  }
+}
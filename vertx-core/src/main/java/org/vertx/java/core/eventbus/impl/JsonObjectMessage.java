@@ -26,23 +26,41 @@ import org.vertx.java.core.json.JsonObject;
  */
 public class JsonObjectMessage extends BaseMessage<JsonObject> {
 
+  // The UTF-8 encoded body. Messages received from another node keep only this until the body is first asked
+  // for, so messages which are never read, or are just forwarded, are never parsed
   private byte[] encoded;
+  private boolean undecoded;
 
   public JsonObjectMessage(boolean send, String address, JsonObject body) {
     super(send, address, body);
   }
 
   private JsonObjectMessage(JsonObjectMessage other) {
-    super(other.send, other.address, other.body == null ? null : other.body.copy());
+    super(other.send, other.address, other.undecoded || other.body == null ? null : other.body.copy());
+    if (other.undecoded) {
+      // Each copy decodes its own instance, so there's no need to copy
+      this.encoded = other.encoded;
+      this.undecoded = true;
+    }
     this.replyAddress = other.replyAddress;
     this.bus = other.bus;
     this.sender = other.sender;
+    this.deadline = other.deadline;
   }
 
   public JsonObjectMessage(Buffer readBuff) {
     super(readBuff);
   }
 
+  @Override
+  public JsonObject body() {
+    if (undecoded) {
+      body = new JsonObject(new String(encoded, CharsetUtil.UTF_8));
+      undecoded = false;
+    }
+    return body;
+  }
+
   @Override
   protected void readBody(int pos, Buffer readBuff) {
     boolean isNull = readBuff.getByte(pos) == (byte)0;
@@ -50,15 +68,14 @@ public class JsonObjectMessage extends BaseMessage<JsonObject> {
       pos++;
       int strLength = readBuff.getInt(pos);
       pos += 4;
-      byte[] bytes = readBuff.getBytes(pos, pos + strLength);
-      String str = new String(bytes, CharsetUtil.UTF_8);
-      body = new JsonObject(str);
+      encoded = readBuff.getBytes(pos, pos + strLength);
+      undecoded = true;
     }
   }
 
   @Override
   protected void writeBody(Buffer buff) {
-    if (body == null) {
+    if (!undecoded && body == null) {
       buff.appendByte((byte)0);
     } else {
       buff.appendByte((byte)1);
@@ -69,7 +86,10 @@ public class JsonObjectMessage extends BaseMessage<JsonObject> {
 
   @Override
   protected int getBodyLength() {
-    if (body == null) {
+    if (undecoded) {
+      // Still in wire form, so it can go straight back out
+      return 1 + 4 + encoded.length;
+    } else if (body == null) {
       return 1;
     } else {
       String strJson = body.encode();
@@ -78,6 +98,17 @@ public class JsonObjectMessage extends BaseMessage<JsonObject> {
     }
   }
 
+  @Override
+  protected BaseMessage<JsonObject> forwardTo(String address) {
+    if (undecoded) {
+      JsonObjectMessage forwarded = new JsonObjectMessage(true, address, null);
+      forwarded.encoded = encoded;
+      forwarded.undecoded = true;
+      return forwarded;
+    }
+    return super.forwardTo(address);
+  }
+
   @Override
   protected Message<JsonObject> copy() {
     return new JsonObjectMessage(this);
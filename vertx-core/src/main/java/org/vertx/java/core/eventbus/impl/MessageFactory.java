@@ -17,6 +17,9 @@
 package org.vertx.java.core.eventbus.impl;
 
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.eventbus.MessageCodec;
+
+import java.util.Map;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -37,10 +40,17 @@ public class MessageFactory {
   static final byte TYPE_STRING = 11;
   static final byte TYPE_JSON_OBJECT = 12;
   static final byte TYPE_JSON_ARRAY = 13;
+  static final byte TYPE_CODEC = 14;
   static final byte TYPE_REPLY_FAILURE = 100;
+  // Set in the type byte of frames which are compressed
+  static final byte FLAG_COMPRESSED = (byte)0x80;
 
-  static BaseMessage read(Buffer buff) {
+  static BaseMessage<?> read(Buffer buff, Map<Integer, MessageCodec<?>> codecs, FrameCompression compression) {
     byte type = buff.getByte(0);
+    if ((type & FLAG_COMPRESSED) != 0) {
+      buff = compression.decompress(buff);
+      type = buff.getByte(0);
+    }
     switch (type) {
       case TYPE_PING:
         return new PingMessage(buff);
@@ -70,6 +80,8 @@ public class MessageFactory {
         return new JsonObjectMessage(buff);
       case TYPE_JSON_ARRAY:
         return new JsonArrayMessage(buff);
+      case TYPE_CODEC:
+        return new CodecMessage<>(buff, codecs);
       case TYPE_REPLY_FAILURE:
         return new ReplyFailureMessage(buff);
       default:
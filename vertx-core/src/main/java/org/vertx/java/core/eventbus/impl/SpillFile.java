@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus.impl;
+
+import io.netty.buffer.Unpooled;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.net.impl.ServerID;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An append-only file of the encoded frames waiting for a connection to another node, used once the frames pending
+ * in memory reach their limit. Frames are appended by the connection's spill writer on the background pool, and read
+ * back in chunks on the connection's event loop once it's connected. Appends and reads can overlap, a read only sees
+ * the frames which were completely appended before it started.
+ */
+class SpillFile {
+
+  private final File file;
+  private final FileChannel channel;
+  private volatile long size;
+  private long readPos;
+
+  SpillFile(File dir, ServerID serverID) throws IOException {
+    file = File.createTempFile("vertx-eventbus-" + serverID.host + "-" + serverID.port + "-", ".spill", dir);
+    file.deleteOnExit();
+    channel = new RandomAccessFile(file, "rw").getChannel();
+  }
+
+  void append(Buffer frame) throws IOException {
+    ByteBuffer bytes = frame.getByteBuf().nioBuffer();
+    long pos = size;
+    while (bytes.hasRemaining()) {
+      pos += channel.write(bytes, pos);
+    }
+    size = pos;
+  }
+
+  /**
+   * The number of bytes which haven't been read yet
+   */
+  long remaining() {
+    return size - readPos;
+  }
+
+  /**
+   * Returns up to {@code max} of the bytes which haven't been read yet, or null if they all have. The chunks don't
+   * follow frame boundaries.
+   */
+  Buffer read(int max) throws IOException {
+    int length = (int)Math.min(max, size - readPos);
+    if (length == 0) {
+      return null;
+    }
+    ByteBuffer bytes = ByteBuffer.allocate(length);
+    while (bytes.hasRemaining()) {
+      if (channel.read(bytes, readPos + bytes.position()) < 0) {
+        throw new EOFException(file + " is shorter than expected");
+      }
+    }
+    readPos += length;
+    bytes.flip();
+    return new Buffer(Unpooled.wrappedBuffer(bytes));
+  }
+
+  void delete() {
+    try {
+      channel.close();
+    } catch (IOException ignore) {
+    }
+    file.delete();
+  }
+}
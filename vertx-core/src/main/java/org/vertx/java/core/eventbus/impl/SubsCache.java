@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.eventbus.impl;
+
+import org.vertx.java.core.net.impl.ServerID;
+import org.vertx.java.core.spi.cluster.ChoosableIterable;
+import org.vertx.java.core.spi.cluster.MultiMapListener;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Synchronous cache of the cluster subscriptions, so a send can find its targets without going through the
+ * asynchronous subs map.<p>
+ * Any change to the subscriptions of an address, on any node, drops the cached entry for it and the next send fetches
+ * them again. A fetch which was in progress when something changed isn't cached, as it might be out of date.<p>
+ * Addresses without any subscriptions are cached too, so sends to addresses only handled on this node don't have to
+ * look them up. There can be any number of those, so at most {@code vertx.cluster.subscache.maxempty} of them are
+ * kept, and any one of them is dropped to make room for another.<p>
+ * Only cluster managers which report changes to the subscriptions get their subscriptions cached. Otherwise the cache
+ * just keeps the hash rings for keyed sends.
+ */
+class SubsCache implements MultiMapListener<String, ServerID> {
+
+  private static final int MAX_EMPTY = Integer.getInteger("vertx.cluster.subscache.maxempty", 10000);
+  private static final int MAX_RINGS = 256;
+  private static final ServerIDs NONE = new ServerIDs(null);
+
+  private final boolean caching;
+  private final ConcurrentMap<String, ServerIDs> cache = new ConcurrentHashMap<>();
+  // Addresses with no subscriptions
+  private final Set<String> empty = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  private final AtomicLong changes = new AtomicLong();
+  // Rings for subscriptions which aren't cached, keyed by their nodes. A ring only depends on the nodes in it so these
+  // can't go out of date, they're just all dropped if there get to be too many
+  private final ConcurrentMap<Set<ServerID>, HashRing<ServerID>> rings = new ConcurrentHashMap<>();
+
+  /**
+   * @param caching whether the subscriptions are cached. Only if the cluster manager reports changes to them
+   */
+  SubsCache(boolean caching) {
+    this.caching = caching;
+  }
+
+  /**
+   * @return the cached subscriptions for the address, or null if they have to be fetched
+   */
+  ChoosableIterable<ServerID> get(String address) {
+    ServerIDs ids = cache.get(address);
+    if (ids == null && empty.contains(address)) {
+      return NONE;
+    }
+    return ids;
+  }
+
+  /**
+   * Call before fetching the subscriptions for an address
+   * @return the token to pass to {@link #put}
+   */
+  long fetching() {
+    return changes.get();
+  }
+
+  ChoosableIterable<ServerID> put(String address, ChoosableIterable<ServerID> serverIDs, long token) {
+    if (!caching) {
+      return serverIDs;
+    }
+    ServerIDs copy = new ServerIDs(serverIDs);
+    if (changes.get() != token) {
+      return copy;
+    }
+    if (copy.isEmpty()) {
+      if (empty.add(address)) {
+        Iterator<String> iter = empty.iterator();
+        while (empty.size() > MAX_EMPTY && iter.hasNext()) {
+          if (!iter.next().equals(address)) {
+            iter.remove();
+          }
+        }
+        if (changes.get() != token) {
+          // Something changed while we were putting it
+          empty.remove(address);
+        }
+      }
+      return NONE;
+    }
+    // Sends which missed at the same time share one entry, so they're still spread round robin
+    ServerIDs prev = cache.putIfAbsent(address, copy);
+    if (prev != null) {
+      return prev;
+    }
+    if (changes.get() != token) {
+      // Something changed while we were putting it
+      cache.remove(address, copy);
+    }
+    return copy;
+  }
+
+  void invalidate(String address) {
+    changes.incrementAndGet();
+    cache.remove(address);
+    empty.remove(address);
+  }
+
+  void clear() {
+    changes.incrementAndGet();
+    cache.clear();
+    empty.clear();
+  }
+
+  /**
+   * @return the hash ring of the subscriptions. It's kept with them when they're cached, and as any change drops them
+   * it's always in step with the nodes subscribed. If the subscriptions aren't being cached it's shared with other
+   * subscriptions with the same nodes instead
+   */
+  HashRing<ServerID> ring(ChoosableIterable<ServerID> serverIDs) {
+    if (serverIDs instanceof ServerIDs) {
+      return ((ServerIDs)serverIDs).ring();
+    }
+    Set<ServerID> nodes = new HashSet<>();
+    for (ServerID id: serverIDs) {
+      nodes.add(id);
+    }
+    HashRing<ServerID> ring = rings.get(nodes);
+    if (ring == null) {
+      if (rings.size() >= MAX_RINGS) {
+        rings.clear();
+      }
+      ring = createRing(nodes);
+      HashRing<ServerID> prev = rings.putIfAbsent(nodes, ring);
+      if (prev != null) {
+        ring = prev;
+      }
+    }
+    return ring;
+  }
+
+  private static HashRing<ServerID> createRing(Iterable<ServerID> serverIDs) {
+    HashRing<ServerID> ring = new HashRing<>();
+    for (ServerID id: serverIDs) {
+      // Seeded from the host and port so every node builds the same ring
+      ring.add(id, (id.host + ":" + id.port).hashCode());
+    }
+    return ring;
+  }
+
+  @Override
+  public void entryAdded(String address, ServerID serverID) {
+    invalidate(address);
+  }
+
+  @Override
+  public void entryRemoved(String address, ServerID serverID) {
+    invalidate(address);
+  }
+
+  private static class ServerIDs implements ChoosableIterable<ServerID> {
+
+    private static final ServerID[] EMPTY = new ServerID[0];
+
+    private final ServerID[] ids;
+    private final AtomicInteger pos = new AtomicInteger();
+    private volatile HashRing<ServerID> ring;
+
+    ServerIDs(ChoosableIterable<ServerID> serverIDs) {
+      if (serverIDs == null || serverIDs.isEmpty()) {
+        ids = EMPTY;
+      } else {
+        int size = 0;
+        ServerID[] copy = new ServerID[4];
+        for (ServerID id: serverIDs) {
+          if (size == copy.length) {
+            copy = Arrays.copyOf(copy, size * 2);
+          }
+          copy[size++] = id;
+        }
+        ids = size == copy.length ? copy : Arrays.copyOf(copy, size);
+      }
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return ids.length == 0;
+    }
+
+    @Override
+    public ServerID choose() {
+      if (ids.length == 0) {
+        return null;
+      }
+      return ids[(pos.getAndIncrement() & Integer.MAX_VALUE) % ids.length];
+    }
+
+    HashRing<ServerID> ring() {
+      HashRing<ServerID> r = ring;
+      if (r == null) {
+        // Racing sends may each build one, they're all the same
+        r = ring = createRing(this);
+      }
+      return r;
+    }
+
+    @Override
+    public Iterator<ServerID> iterator() {
+      return Arrays.asList(ids).iterator();
+    }
+  }
+}
@@ -18,7 +18,6 @@ package org.vertx.java.core.http.impl;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.Future;
@@ -37,6 +36,7 @@ import org.vertx.java.core.impl.DefaultFutureResult;
 import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.core.net.NetSocket;
 import org.vertx.java.core.net.impl.TCPSSLHelper;
+import org.vertx.java.core.net.impl.Transport;
 import org.vertx.java.core.net.impl.VertxEventLoopGroup;
 
 import javax.net.ssl.SSLEngine;
@@ -646,7 +646,7 @@ public class DefaultHttpClient implements HttpClient {
       pool.addWorker(actualCtx.getEventLoop());
       bootstrap = new Bootstrap();
       bootstrap.group(pool);
-      bootstrap.channel(NioSocketChannel.class);
+      bootstrap.channel(Transport.socketChannel());
       tcpHelper.checkSSL(vertx);
 
       bootstrap.handler(new ChannelInitializer<Channel>() {
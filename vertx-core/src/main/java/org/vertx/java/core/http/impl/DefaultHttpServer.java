@@ -22,7 +22,6 @@ import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.ChannelGroupFuture;
 import io.netty.channel.group.ChannelGroupFutureListener;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
@@ -155,8 +154,7 @@ public class DefaultHttpServer implements HttpServer, Closeable {
       if (shared == null) {
         serverChannelGroup = new DefaultChannelGroup("vertx-acceptor-channels", GlobalEventExecutor.INSTANCE);
         ServerBootstrap bootstrap = new ServerBootstrap();
-        bootstrap.group(availableWorkers);
-        bootstrap.channel(NioServerSocketChannel.class);
+        bootstrap.channel(Transport.serverSocketChannel());
         tcpHelper.applyConnectionOptions(bootstrap);
         tcpHelper.checkSSL(vertx);
         bootstrap.childHandler(new ChannelInitializer<Channel>() {
@@ -198,9 +196,8 @@ public class DefaultHttpServer implements HttpServer, Closeable {
 
         addHandlers(this);
         try {
-          bindFuture = bootstrap.bind(new InetSocketAddress(InetAddress.getByName(host), port));
-          Channel serverChannel = bindFuture.channel();
-          serverChannelGroup.add(serverChannel);
+          bindFuture = Transport.bind(vertx, bootstrap, availableWorkers,
+                                      new InetSocketAddress(InetAddress.getByName(host), port), serverChannelGroup);
           bindFuture.addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture channelFuture) throws Exception {
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package org.vertx.java.core.impl;
+
+import org.vertx.java.core.VertxException;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warns when a vert.x thread has been running the same task for too long.<p>
+ * Event loop threads should never block, so by default a task that's held one for more than 2 seconds is reported,
+ * and a task that's held a worker thread for more than a minute. The limits can be changed in ms with the
+ * {@code vertx.blockedthread.eventloop.maxtime} and {@code vertx.blockedthread.worker.maxtime} system properties.
+ * Threads are checked every {@code vertx.blockedthread.interval} ms, and setting it to zero disables checking.<p>
+ * Each check that finds a thread still blocked logs its current stack, so a long block shows where it's got to.
+ * Blocked tasks are counted once each.
+ */
+public class BlockedThreadChecker {
+
+  private static final Logger log = LoggerFactory.getLogger(BlockedThreadChecker.class);
+
+  private static final long INTERVAL = Long.getLong("vertx.blockedthread.interval", 1000);
+  private static final long EVENT_LOOP_MAX_TIME =
+      TimeUnit.MILLISECONDS.toNanos(Long.getLong("vertx.blockedthread.eventloop.maxtime", 2000));
+  private static final long WORKER_MAX_TIME =
+      TimeUnit.MILLISECONDS.toNanos(Long.getLong("vertx.blockedthread.worker.maxtime", 60000));
+
+  private static final AtomicLong blockedEventLoopTasks = new AtomicLong();
+  private static final AtomicLong blockedWorkerTasks = new AtomicLong();
+
+  // The value is the start time of the task last reported as blocked on the thread
+  private static final Map<VertxThread, Long> threads = new WeakHashMap<>();
+  private static Timer timer;
+
+  static synchronized void registerThread(VertxThread thread) {
+    if (INTERVAL <= 0) {
+      return;
+    }
+    threads.put(thread, 0L);
+    if (timer == null) {
+      timer = new Timer("vert.x-blocked-thread-checker", true);
+      timer.schedule(new TimerTask() {
+        public void run() {
+          checkThreads();
+        }
+      }, INTERVAL, INTERVAL);
+    }
+  }
+
+  /**
+   * @return the number of tasks which have blocked an event loop thread for longer than the limit
+   */
+  public static long getBlockedEventLoopTasks() {
+    return blockedEventLoopTasks.get();
+  }
+
+  /**
+   * @return the number of tasks which have blocked a worker thread for longer than the limit
+   */
+  public static long getBlockedWorkerTasks() {
+    return blockedWorkerTasks.get();
+  }
+
+  private static void checkThreads() {
+    long now = System.nanoTime();
+    ArrayList<VertxThread> blocked = new ArrayList<>();
+    synchronized (BlockedThreadChecker.class) {
+      for (Map.Entry<VertxThread, Long> entry: threads.entrySet()) {
+        VertxThread thread = entry.getKey();
+        long start = thread.getExecStart();
+        if (start != 0 && now - start > (thread.isWorker() ? WORKER_MAX_TIME : EVENT_LOOP_MAX_TIME)) {
+          if (entry.getValue() != start) {
+            entry.setValue(start);
+            (thread.isWorker() ? blockedWorkerTasks : blockedEventLoopTasks).incrementAndGet();
+          }
+          blocked.add(thread);
+        }
+      }
+    }
+    // Take the stacks outside the lock, so we don't hold up threads being created
+    for (VertxThread thread: blocked) {
+      long start = thread.getExecStart();
+      if (start != 0) {
+        report(thread, TimeUnit.NANOSECONDS.toMillis(now - start));
+      }
+    }
+  }
+
+  private static void report(VertxThread thread, long blockedTime) {
+    StringBuilder msg = new StringBuilder("Thread ").append(thread.getName()).append(" has been blocked for ")
+        .append(blockedTime).append(" ms");
+    DefaultContext context = thread.getExecContext();
+    DeploymentHandle deployment = context == null ? null : context.getDeploymentHandle();
+    if (deployment != null) {
+      msg.append(" by deployment ").append(deployment.getDeploymentName());
+    }
+    msg.append(", limit is ")
+        .append(TimeUnit.NANOSECONDS.toMillis(thread.isWorker() ? WORKER_MAX_TIME : EVENT_LOOP_MAX_TIME)).append(" ms");
+    VertxException stack = new VertxException("Thread blocked");
+    stack.setStackTrace(thread.getStackTrace());
+    log.warn(msg, stack);
+  }
+}
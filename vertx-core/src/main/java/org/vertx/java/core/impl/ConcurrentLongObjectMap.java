@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package org.vertx.java.core.impl;
+
+/**
+ * A thread-safe map keyed by primitive longs, which avoids boxing the key and allocating an entry per mapping.<p>
+ * The map is split into lock-striped segments, each an open addressing hash table. It's intended for short lived
+ * mappings keyed by sequence numbers, such as reply handlers and timers, so null values are not supported.
+ */
+public class ConcurrentLongObjectMap<V> {
+
+  private static final int SEGMENTS = 16;
+  private static final int SEGMENT_MASK = SEGMENTS - 1;
+
+  private final Segment<V>[] segments;
+
+  public ConcurrentLongObjectMap() {
+    @SuppressWarnings("unchecked")
+    Segment<V>[] segments = (Segment<V>[])new Segment<?>[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment<>();
+    }
+    this.segments = segments;
+  }
+
+  public V get(long key) {
+    return segmentFor(key).get(key);
+  }
+
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new NullPointerException("value");
+    }
+    return segmentFor(key).put(key, value);
+  }
+
+  public V remove(long key) {
+    return segmentFor(key).remove(key);
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment<V> segment: segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  private Segment<V> segmentFor(long key) {
+    return segments[(int)(key ^ (key >>> 32)) & SEGMENT_MASK];
+  }
+
+  private static int hash(long key) {
+    // Fibonacci hashing - spreads sequential keys across the table
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int)(h ^ (h >>> 32));
+  }
+
+  private static final class Segment<V> {
+
+    private long[] keys = new long[16];
+    private Object[] values = new Object[16];
+    private int size;
+
+    synchronized int size() {
+      return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized V get(long key) {
+      int mask = keys.length - 1;
+      for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          return (V)values[i];
+        }
+      }
+      return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized V put(long key, V value) {
+      int mask = keys.length - 1;
+      int i = hash(key) & mask;
+      for (; values[i] != null; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          V prev = (V)values[i];
+          values[i] = value;
+          return prev;
+        }
+      }
+      keys[i] = key;
+      values[i] = value;
+      if (++size > keys.length >> 1) {
+        resize(keys.length << 1);
+      }
+      return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized V remove(long key) {
+      int mask = keys.length - 1;
+      for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          V prev = (V)values[i];
+          values[i] = null;
+          size--;
+          closeGap(i, mask);
+          return prev;
+        }
+      }
+      return null;
+    }
+
+    // Shift back any entries in the probe sequence after the removed slot so lookups don't stop early
+    private void closeGap(int gap, int mask) {
+      for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+        int ideal = hash(keys[i]) & mask;
+        // Move the entry if the gap lies cyclically between its ideal slot and its current slot
+        if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+          keys[gap] = keys[i];
+          values[gap] = values[i];
+          values[i] = null;
+          gap = i;
+        }
+      }
+    }
+
+    private void resize(int capacity) {
+      long[] oldKeys = keys;
+      Object[] oldValues = values;
+      keys = new long[capacity];
+      values = new Object[capacity];
+      int mask = capacity - 1;
+      for (int j = 0; j < oldKeys.length; j++) {
+        if (oldValues[j] != null) {
+          int i = hash(oldKeys[j]) & mask;
+          while (values[i] != null) {
+            i = (i + 1) & mask;
+          }
+          keys[i] = oldKeys[j];
+          values[i] = oldValues[j];
+        }
+      }
+    }
+  }
+}
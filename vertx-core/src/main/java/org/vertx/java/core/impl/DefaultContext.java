@@ -23,6 +23,7 @@ import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Context;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.file.impl.PathResolver;
+import org.vertx.java.core.impl.management.EventLoopMXBeanImpl;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
@@ -44,18 +45,30 @@ public abstract class DefaultContext implements Context {
   private final ClassLoader tccl;
   private boolean closed;
   private final EventLoop eventLoop;
+  // Null if the event loop isn't one of vert.x's own
+  private final EventLoopMXBeanImpl eventLoopMetrics;
+  private boolean counted;
   protected final Executor orderedBgExec;
 
   protected DefaultContext(VertxInternal vertx, Executor orderedBgExec) {
+    this(vertx, orderedBgExec, null);
+  }
+
+  /**
+   * @param eventLoop the event loop for the context, or null to let vert.x choose one
+   */
+  protected DefaultContext(VertxInternal vertx, Executor orderedBgExec, EventLoop eventLoop) {
     this.vertx = vertx;
     this.orderedBgExec = orderedBgExec;
     EventLoopGroup group = vertx.getEventLoopGroup();
     if (group != null) {
-      this.eventLoop = group.next();
+      this.eventLoop = eventLoop != null ? eventLoop : vertx.chooseEventLoop();
       this.tccl = Thread.currentThread().getContextClassLoader();
+      this.eventLoopMetrics = vertx.getEventLoopMetrics(this.eventLoop);
     } else {
       this.eventLoop = null;
       this.tccl = null;
+      this.eventLoopMetrics = null;
     }
   }
 
@@ -65,6 +78,12 @@ public abstract class DefaultContext implements Context {
 
   public void setDeploymentHandle(DeploymentHandle deploymentHandle) {
     this.deploymentContext = deploymentHandle;
+    // Only deployments count towards the event loop's contexts. The contexts vert.x creates for calls made from
+    // outside it are never closed
+    if (deploymentHandle != null && eventLoopMetrics != null && !counted && !closed) {
+      counted = true;
+      eventLoopMetrics.contextCreated();
+    }
   }
 
   public DeploymentHandle getDeploymentHandle() {
@@ -158,6 +177,9 @@ public abstract class DefaultContext implements Context {
 
   public void close() {
     unsetContext();
+    if (counted && !closed) {
+      eventLoopMetrics.contextClosed();
+    }
     closed = true;
   }
 
@@ -165,17 +187,42 @@ public abstract class DefaultContext implements Context {
     vertx.setContext(null);
   }
 
+  /**
+   * Marks the start of a task on the current thread, so it counts towards the event loop metrics and is reported by
+   * the {@link BlockedThreadChecker} if it takes too long. Tasks run through the context are marked already, this is
+   * for handlers which are called directly on the event loop, e.g. when a Netty channel is read. Only the outermost
+   * task on the thread is timed, as tasks can be run from inside other tasks.
+   * @param context The context the task is run for, or null if it doesn't have one yet
+   * @return whether the task is being timed, to be passed to {@link #executeEnd}
+   */
+  public static boolean executeStart(DefaultContext context) {
+    Thread currentThread = Thread.currentThread();
+    if (currentThread instanceof VertxThread && !((VertxThread)currentThread).isExecuting()) {
+      ((VertxThread)currentThread).executeStart(context);
+      return true;
+    }
+    return false;
+  }
+
+  public static void executeEnd(boolean timed) {
+    if (timed) {
+      ((VertxThread)Thread.currentThread()).executeEnd();
+    }
+  }
+
   protected Runnable wrapTask(final Runnable task) {
     return new Runnable() {
       public void run() {
         Thread currentThread = Thread.currentThread();
         String threadName = currentThread.getName();
+        boolean timed = executeStart(DefaultContext.this);
         try {
           vertx.setContext(DefaultContext.this);
           task.run();
         } catch (Throwable t) {
           reportException(t);
         } finally {
+          executeEnd(timed);
           if (!threadName.equals(currentThread.getName())) {
             currentThread.setName(threadName);
           }
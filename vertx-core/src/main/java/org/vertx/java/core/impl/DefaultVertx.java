@@ -19,6 +19,7 @@ package org.vertx.java.core.impl;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.util.ResourceLeakDetector;
+import io.netty.util.concurrent.EventExecutor;
 import org.vertx.java.core.*;
 import org.vertx.java.core.datagram.DatagramSocket;
 import org.vertx.java.core.datagram.InternetProtocolFamily;
@@ -34,6 +35,9 @@ import org.vertx.java.core.http.HttpClient;
 import org.vertx.java.core.http.HttpServer;
 import org.vertx.java.core.http.impl.DefaultHttpClient;
 import org.vertx.java.core.http.impl.DefaultHttpServer;
+import org.vertx.java.core.impl.management.EventLoopMXBean;
+import org.vertx.java.core.impl.management.EventLoopMXBeanImpl;
+import org.vertx.java.core.impl.management.ManagementRegistry;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 import org.vertx.java.core.net.NetClient;
@@ -41,6 +45,7 @@ import org.vertx.java.core.net.NetServer;
 import org.vertx.java.core.net.impl.DefaultNetClient;
 import org.vertx.java.core.net.impl.DefaultNetServer;
 import org.vertx.java.core.net.impl.ServerID;
+import org.vertx.java.core.net.impl.Transport;
 import org.vertx.java.core.shareddata.SharedData;
 import org.vertx.java.core.sockjs.SockJSServer;
 import org.vertx.java.core.sockjs.impl.DefaultSockJSServer;
@@ -49,12 +54,17 @@ import org.vertx.java.core.spi.cluster.ClusterManager;
 import org.vertx.java.core.spi.cluster.ClusterManagerFactory;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.concurrent.*;
-import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -64,6 +74,23 @@ public class DefaultVertx implements VertxInternal {
 
   private static final Logger log = LoggerFactory.getLogger(DefaultVertx.class);
 
+  private static final Comparator<EventLoopMXBean> FEWEST_CONTEXTS = new Comparator<EventLoopMXBean>() {
+    public int compare(EventLoopMXBean a, EventLoopMXBean b) {
+      return Integer.compare(a.getContexts(), b.getContexts());
+    }
+  };
+
+  private static final Comparator<EventLoopMXBean> LEAST_BUSY = new Comparator<EventLoopMXBean>() {
+    public int compare(EventLoopMXBean a, EventLoopMXBean b) {
+      int res = Double.compare(a.getBusyRatio(), b.getBusyRatio());
+      return res != 0 ? res : FEWEST_CONTEXTS.compare(a, b);
+    }
+  };
+
+  // How new contexts are spread over the event loops, null for round robin
+  private static final Comparator<EventLoopMXBean> ASSIGNMENT =
+      assignment(System.getProperty("vertx.eventloop.assignment", "roundrobin"));
+
   static {
     // Netty resource leak detection has a performance overhead and we do not need it in Vert.x
     ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.DISABLED);
@@ -78,11 +105,20 @@ public class DefaultVertx implements VertxInternal {
   private ExecutorService backgroundPool = VertxExecutorFactory.workerPool("vert.x-worker-thread-");
   private final OrderedExecutorFactory orderedFact = new OrderedExecutorFactory(backgroundPool);
   private EventLoopGroup eventLoopGroup = VertxExecutorFactory.eventLoopGroup("vert.x-eventloop-thread-");
+  private final Map<EventLoop, EventLoopMXBeanImpl> eventLoopMetrics = createEventLoopMetrics();
+  private final EventLoopMXBeanImpl[] eventLoops =
+      eventLoopMetrics.values().toArray(new EventLoopMXBeanImpl[eventLoopMetrics.size()]);
+  private final AtomicInteger assignmentPos = new AtomicInteger();
+  // Created when first needed, if the event loops are native ones
+  private EventLoopGroup nioEventLoopGroup;
+  // Created when first needed, if there are dedicated acceptors
+  private EventLoopGroup acceptorEventLoopGroup;
 
   private Map<ServerID, DefaultHttpServer> sharedHttpServers = new HashMap<>();
   private Map<ServerID, DefaultNetServer> sharedNetServers = new HashMap<>();
 
-  private final ConcurrentMap<Long, InternalTimerHandler> timeouts = new ConcurrentHashMap<>();
+  private final ConcurrentLongObjectMap<InternalTimerHandler> timeouts = new ConcurrentLongObjectMap<>();
+  private final ConcurrentMap<EventLoop, TimerWheel> timerWheels = new ConcurrentHashMap<>();
   private final AtomicLong timeoutCounter = new AtomicLong(0);
   private final ClusterManager clusterManager;
 
@@ -177,13 +213,21 @@ public class DefaultVertx implements VertxInternal {
   }
 
   public DefaultContext startOnEventLoop(final Runnable runnable) {
-    DefaultContext context  = createEventLoopContext();
+    return startOnEventLoop(runnable, null);
+  }
+
+  public DefaultContext startOnEventLoop(final Runnable runnable, EventLoop eventLoop) {
+    DefaultContext context  = new EventLoopContext(this, orderedFact.getExecutor(), eventLoop);
     context.execute(runnable);
     return context;
   }
 
   public DefaultContext startInBackground(final Runnable runnable, final boolean multiThreaded) {
-    DefaultContext context  = createWorkerContext(multiThreaded);
+    return startInBackground(runnable, multiThreaded, null);
+  }
+
+  public DefaultContext startInBackground(final Runnable runnable, final boolean multiThreaded, EventLoop eventLoop) {
+    DefaultContext context  = createWorkerContext(multiThreaded, eventLoop);
     context.execute(runnable);
     return context;
   }
@@ -230,6 +274,86 @@ public class DefaultVertx implements VertxInternal {
     return eventLoopGroup;
   }
 
+  public List<EventLoopMXBean> getEventLoopMetrics() {
+    return new ArrayList<EventLoopMXBean>(eventLoopMetrics.values());
+  }
+
+  public EventLoopMXBeanImpl getEventLoopMetrics(EventLoop eventLoop) {
+    return eventLoopMetrics.get(eventLoop);
+  }
+
+  public EventLoop chooseEventLoop() {
+    if (ASSIGNMENT == null) {
+      return eventLoopGroup.next();
+    }
+    // Start from a different event loop each time, so ties are broken round robin
+    int start = assignmentPos.getAndIncrement() & Integer.MAX_VALUE;
+    EventLoopMXBeanImpl chosen = null;
+    for (int i = 0; i < eventLoops.length; i++) {
+      EventLoopMXBeanImpl candidate = eventLoops[(start + i) % eventLoops.length];
+      if (chosen == null || ASSIGNMENT.compare(candidate, chosen) < 0) {
+        chosen = candidate;
+      }
+    }
+    return chosen.getEventLoop();
+  }
+
+  public List<EventLoop> chooseEventLoops(int count) {
+    int start = assignmentPos.getAndIncrement() & Integer.MAX_VALUE;
+    List<EventLoopMXBeanImpl> candidates = new ArrayList<>(eventLoops.length);
+    for (int i = 0; i < eventLoops.length; i++) {
+      candidates.add(eventLoops[(start + i) % eventLoops.length]);
+    }
+    // The sort is stable so ties stay round robin
+    Collections.sort(candidates, ASSIGNMENT == null ? FEWEST_CONTEXTS : ASSIGNMENT);
+    List<EventLoop> chosen = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      chosen.add(candidates.get(i % candidates.size()).getEventLoop());
+    }
+    return chosen;
+  }
+
+  private static Comparator<EventLoopMXBean> assignment(String name) {
+    switch (name) {
+      case "roundrobin":
+        return null;
+      case "contexts":
+        return FEWEST_CONTEXTS;
+      case "busy":
+        return LEAST_BUSY;
+      default:
+        log.warn("Unknown event loop assignment " + name + ", using round robin");
+        return null;
+    }
+  }
+
+  private Map<EventLoop, EventLoopMXBeanImpl> createEventLoopMetrics() {
+    Map<EventLoop, EventLoopMXBeanImpl> metrics = new LinkedHashMap<>();
+    for (EventExecutor executor: eventLoopGroup) {
+      EventLoop eventLoop = (EventLoop)executor;
+      metrics.put(eventLoop, new EventLoopMXBeanImpl(eventLoop, metrics.size()));
+    }
+    ManagementRegistry.registerEventLoops(metrics.values());
+    return metrics;
+  }
+
+  public synchronized EventLoopGroup getNioEventLoopGroup() {
+    if (!Transport.EPOLL) {
+      return eventLoopGroup;
+    }
+    if (nioEventLoopGroup == null) {
+      nioEventLoopGroup = VertxExecutorFactory.nioEventLoopGroup("vert.x-nio-eventloop-thread-");
+    }
+    return nioEventLoopGroup;
+  }
+
+  public synchronized EventLoopGroup getAcceptorEventLoopGroup() {
+    if (acceptorEventLoopGroup == null && VertxExecutorFactory.acceptorPoolSize() > 0) {
+      acceptorEventLoopGroup = VertxExecutorFactory.acceptorEventLoopGroup("vert.x-acceptor-thread-");
+    }
+    return acceptorEventLoopGroup;
+  }
+
   public DefaultContext getOrCreateContext() {
     DefaultContext ctx = getContext();
     if (ctx == null) {
@@ -280,39 +404,32 @@ public class DefaultVertx implements VertxInternal {
       throw new IllegalArgumentException("Cannot schedule a timer with delay < 1 ms");
     }
     long timerId = timeoutCounter.getAndIncrement();
-    final InternalTimerHandler task = new InternalTimerHandler(timerId, handler, periodic, context);
-    final Runnable wrapped = context.wrapTask(task);
-
-    final Runnable toRun;
-    final EventLoop el = context.getEventLoop();
-    if (context instanceof EventLoopContext) {
-      toRun = wrapped;
-    } else {
-      // On worker context
-      toRun = new Runnable() {
-        public void run() {
-          // Make sure the timer gets executed on the worker context
-          context.execute(wrapped);
-        }
-      };
-    }
-    Future<?> future;
-    if (periodic) {
-      future = el.scheduleAtFixedRate(toRun, delay, delay, TimeUnit.MILLISECONDS);
-    } else {
-      future = el.schedule(toRun, delay, TimeUnit.MILLISECONDS);
-    }
-    task.future = future;
+    TimerWheel wheel = timerWheel(context.getEventLoop());
+    final InternalTimerHandler task = new InternalTimerHandler(wheel, timerId, handler, periodic, context);
+    // Register it before it can fire, so a short timer can clean up after itself
     timeouts.put(timerId, task);
     context.addCloseHook(task);
+    wheel.schedule(task, delay, periodic);
     return timerId;
   }
 
-  private DefaultContext createWorkerContext(boolean multiThreaded) {
+  private TimerWheel timerWheel(EventLoop el) {
+    TimerWheel wheel = timerWheels.get(el);
+    if (wheel == null) {
+      wheel = new TimerWheel(el);
+      TimerWheel prev = timerWheels.putIfAbsent(el, wheel);
+      if (prev != null) {
+        wheel = prev;
+      }
+    }
+    return wheel;
+  }
+
+  private DefaultContext createWorkerContext(boolean multiThreaded, EventLoop eventLoop) {
     if (multiThreaded) {
-      return new MultiThreadedWorkerContext(this, orderedFact.getExecutor(), backgroundPool);
+      return new MultiThreadedWorkerContext(this, orderedFact.getExecutor(), backgroundPool, eventLoop);
     } else {
-      return new WorkerContext(this, orderedFact.getExecutor());
+      return new WorkerContext(this, orderedFact.getExecutor(), eventLoop);
     }
   }
 
@@ -370,6 +487,18 @@ public class DefaultVertx implements VertxInternal {
     if (eventLoopGroup != null) {
       eventLoopGroup.shutdownGracefully();
     }
+    ManagementRegistry.unregisterEventLoops(eventLoopMetrics.values());
+
+    synchronized (this) {
+      if (nioEventLoopGroup != null) {
+        nioEventLoopGroup.shutdownGracefully();
+        nioEventLoopGroup = null;
+      }
+      if (acceptorEventLoopGroup != null) {
+        acceptorEventLoopGroup.shutdownGracefully();
+        acceptorEventLoopGroup = null;
+      }
+    }
 
     eventBus.close(null);
 
@@ -406,24 +535,36 @@ public class DefaultVertx implements VertxInternal {
     return clusterManager;
   }
 
-  private class InternalTimerHandler implements Runnable, Closeable {
+  private class InternalTimerHandler extends TimerWheel.Timeout implements Runnable, Closeable {
     final Handler<Long> handler;
     final boolean periodic;
     final long timerID;
     final DefaultContext context;
-    volatile Future<?> future;
-    boolean cancelled;
+    final Runnable wrapped;
+    volatile boolean cancelled;
 
     boolean cancel() {
       cancelled = true;
-      return future.cancel(false);
+      return super.cancel();
     }
 
-    InternalTimerHandler(long timerID, Handler<Long> runnable, boolean periodic, DefaultContext context) {
+    InternalTimerHandler(TimerWheel wheel, long timerID, Handler<Long> runnable, boolean periodic, DefaultContext context) {
+      super(wheel);
       this.context = context;
       this.timerID = timerID;
       this.handler = runnable;
       this.periodic = periodic;
+      this.wrapped = context.wrapTask(this);
+    }
+
+    // Called on the event loop when the timer is due
+    protected void expire() {
+      if (context instanceof EventLoopContext) {
+        wrapped.run();
+      } else {
+        // Make sure the timer gets executed on the worker context
+        context.execute(wrapped);
+      }
     }
 
     public void run() {
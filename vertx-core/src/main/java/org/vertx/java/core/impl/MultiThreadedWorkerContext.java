@@ -16,6 +16,8 @@
 
 package org.vertx.java.core.impl;
 
+import io.netty.channel.EventLoop;
+
 import java.util.concurrent.Executor;
 
 public class MultiThreadedWorkerContext extends WorkerContext {
@@ -23,7 +25,12 @@ public class MultiThreadedWorkerContext extends WorkerContext {
   private final Executor bgExec;
 
   public MultiThreadedWorkerContext(VertxInternal vertx, Executor orderedBgExec, Executor bgExec) {
-    super(vertx, orderedBgExec);
+    this(vertx, orderedBgExec, bgExec, null);
+  }
+
+  public MultiThreadedWorkerContext(VertxInternal vertx, Executor orderedBgExec, Executor bgExec,
+                                    EventLoop eventLoop) {
+    super(vertx, orderedBgExec, eventLoop);
     this.bgExec = bgExec;
   }
 
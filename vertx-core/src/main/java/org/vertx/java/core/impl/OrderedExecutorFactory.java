@@ -20,8 +20,11 @@ package org.vertx.java.core.impl;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
-import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A factory for producing executors that run all tasks in order, which delegate to a single common executor instance.
@@ -33,6 +36,9 @@ import java.util.concurrent.Executor;
 public class OrderedExecutorFactory {
   private static final Logger log = LoggerFactory.getLogger(OrderedExecutorFactory.class);
 
+  // The most tasks an executor runs before giving its thread back to the parent
+  private static final int MAX_BATCH = Integer.getInteger("vertx.pool.worker.maxbatch", 64);
+
   private final Executor parent;
 
   /**
@@ -58,13 +64,15 @@ public class OrderedExecutorFactory {
    * <p/>
    * More specifically, any call B to the {@link #execute(Runnable)} method that happens-after another call A to the
    * same method, will result in B's task running after A's.
+   * <p/>
+   * Submitters never block each other: tasks go onto a lock-free queue and only the submitter that flips the
+   * {@code scheduled} flag hands the runner to the parent. The runner gives its thread back to the parent after
+   * {@link #MAX_BATCH} tasks so a busy executor cannot starve the others sharing the pool.
    */
   private static final class OrderedExecutor implements Executor {
-    // @protectedby tasks
-    private final LinkedList<Runnable> tasks = new LinkedList<>();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
 
-    // @protectedby tasks
-    private boolean running;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
 
     private final Executor parent;
 
@@ -75,24 +83,37 @@ public class OrderedExecutorFactory {
      *
      * @param parent the parent executor
      */
-    public OrderedExecutor(Executor parent) {
+    public OrderedExecutor(final Executor parent) {
       this.parent = parent;
       runner = new Runnable() {
         public void run() {
-          for (; ; ) {
-            final Runnable task;
-            synchronized (tasks) {
-              task = tasks.poll();
-              if (task == null) {
-                running = false;
+          for (int count = 0; ; ) {
+            final Runnable task = tasks.poll();
+            if (task == null) {
+              scheduled.set(false);
+              // A task may have been added after the poll but before the flag was cleared, in which case its
+              // submitter saw the flag still set and left it to us
+              if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
                 return;
               }
+              continue;
             }
             try {
               task.run();
             } catch (Throwable t) {
               log.error("Caught unexpected Throwable", t);
             }
+            if (++count == MAX_BATCH) {
+              // Still scheduled, so nobody else will resubmit us
+              try {
+                parent.execute(this);
+              } catch (RejectedExecutionException e) {
+                // Otherwise the flag would stay set and nothing submitted after this would ever run
+                scheduled.set(false);
+                log.error("Failed to resubmit ordered executor, remaining tasks will run when the next one is submitted", e);
+              }
+              return;
+            }
           }
         }
       };
@@ -104,11 +125,13 @@ public class OrderedExecutorFactory {
      * @param command the task to run.
      */
     public void execute(Runnable command) {
-      synchronized (tasks) {
-        tasks.add(command);
-        if (!running) {
-          running = true;
+      tasks.add(command);
+      if (scheduled.compareAndSet(false, true)) {
+        try {
           parent.execute(runner);
+        } catch (RejectedExecutionException e) {
+          scheduled.set(false);
+          throw e;
         }
       }
     }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package org.vertx.java.core.impl;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A hashed timing wheel owned by a single event loop.<p>
+ * Timeouts are hashed into buckets by the tick they are due on, so scheduling and cancelling a timeout is O(1)
+ * however many are pending, where the event loop's own scheduled task queue is a heap. The wheel only keeps a
+ * wake-up scheduled on the event loop while it has timeouts pending.<p>
+ * The buckets are confined to the event loop thread. Timeouts scheduled or cancelled from other threads are handed
+ * over through lock-free queues.<p>
+ * The tick resolution in milliseconds is set with the {@code vertx.timer.tick} system property and the number of
+ * buckets with {@code vertx.timer.wheelsize}. A timeout never fires early, but may fire up to one tick late.
+ */
+class TimerWheel {
+
+  private static final Logger log = LoggerFactory.getLogger(TimerWheel.class);
+
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(Math.max(1, Long.getLong("vertx.timer.tick", 1)));
+  private static final int WHEEL_SIZE = Integer.highestOneBit(Math.max(2, Integer.getInteger("vertx.timer.wheelsize", 512) * 2 - 1));
+
+  private final EventLoop eventLoop;
+  private final long startTime = System.nanoTime();
+  private final Timeout[] buckets = new Timeout[WHEEL_SIZE];
+  private final int mask = WHEEL_SIZE - 1;
+
+  // Hand over from other threads
+  private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+  // Everything below is only touched on the event loop
+  private long tick;
+  private int pending;
+  private long wakeTick = Long.MAX_VALUE;
+  private ScheduledFuture<?> wakeFuture;
+
+  private final Runnable drainer = new Runnable() {
+    public void run() {
+      drainScheduled.set(false);
+      drain();
+      scheduleWakeup();
+    }
+  };
+
+  private final Runnable expirer = new Runnable() {
+    public void run() {
+      wakeFuture = null;
+      wakeTick = Long.MAX_VALUE;
+      expire();
+    }
+  };
+
+  TimerWheel(EventLoop eventLoop) {
+    this.eventLoop = eventLoop;
+  }
+
+  /**
+   * Schedule a timeout to fire after {@code delay} ms, and then every {@code delay} ms if it's periodic. Periodic
+   * timeouts fire at a fixed rate.
+   */
+  void schedule(Timeout timeout, long delay, boolean periodic) {
+    long delayNanos = TimeUnit.MILLISECONDS.toNanos(delay);
+    timeout.deadline = System.nanoTime() - startTime + delayNanos;
+    timeout.period = periodic ? delayNanos : 0;
+    if (eventLoop.inEventLoop()) {
+      // It may have been cancelled before it was scheduled
+      if (timeout.state == Timeout.ACTIVE) {
+        add(timeout);
+      }
+    } else {
+      added.add(timeout);
+      wakeEventLoop();
+    }
+  }
+
+  private void cancel(Timeout timeout) {
+    if (eventLoop.inEventLoop()) {
+      unlink(timeout);
+    } else {
+      cancelled.add(timeout);
+      wakeEventLoop();
+    }
+  }
+
+  private void wakeEventLoop() {
+    if (drainScheduled.compareAndSet(false, true)) {
+      eventLoop.execute(drainer);
+    }
+  }
+
+  private void drain() {
+    Timeout timeout;
+    while ((timeout = added.poll()) != null) {
+      // It may have been cancelled before it got here
+      if (timeout.state == Timeout.ACTIVE) {
+        add(timeout);
+      }
+    }
+    while ((timeout = cancelled.poll()) != null) {
+      unlink(timeout);
+    }
+  }
+
+  private long currentTick() {
+    return (System.nanoTime() - startTime) / TICK_NANOS;
+  }
+
+  private void add(Timeout timeout) {
+    // Round up so we never fire early, and never into a tick that's already been processed
+    long due = Math.max((timeout.deadline + TICK_NANOS - 1) / TICK_NANOS, tick + 1);
+    int bucket = (int)due & mask;
+    timeout.tick = due;
+    timeout.bucket = bucket;
+    timeout.prev = null;
+    timeout.next = buckets[bucket];
+    if (timeout.next != null) {
+      timeout.next.prev = timeout;
+    }
+    buckets[bucket] = timeout;
+    pending++;
+    if (due < wakeTick) {
+      wakeAt(due);
+    }
+  }
+
+  private void unlink(Timeout timeout) {
+    if (timeout.bucket == -1) {
+      return;
+    }
+    if (timeout.prev != null) {
+      timeout.prev.next = timeout.next;
+    } else {
+      buckets[timeout.bucket] = timeout.next;
+    }
+    if (timeout.next != null) {
+      timeout.next.prev = timeout.prev;
+    }
+    timeout.prev = timeout.next = null;
+    timeout.bucket = -1;
+    pending--;
+  }
+
+  private void expire() {
+    drain();
+    long now = currentTick();
+    // Collect everything that's due before firing anything, since handlers can schedule and cancel timeouts.
+    // However late we are, each bucket only needs visiting once
+    Timeout first = null;
+    Timeout last = null;
+    for (long t = Math.max(tick + 1, now - mask); t <= now; t++) {
+      Timeout timeout = buckets[(int)t & mask];
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.tick <= now) {
+          unlink(timeout);
+          if (last == null) {
+            first = timeout;
+          } else {
+            last.next = timeout;
+          }
+          last = timeout;
+        }
+        timeout = next;
+      }
+    }
+    tick = Math.max(tick, now);
+    while (first != null) {
+      Timeout timeout = first;
+      first = timeout.next;
+      timeout.next = null;
+      fire(timeout);
+    }
+    scheduleWakeup();
+  }
+
+  private void fire(Timeout timeout) {
+    if (timeout.period != 0) {
+      if (timeout.state != Timeout.ACTIVE) {
+        return;
+      }
+      // Re-add it before running the handler, so the handler can cancel it
+      timeout.deadline += timeout.period;
+      add(timeout);
+    } else if (!Timeout.STATE.compareAndSet(timeout, Timeout.ACTIVE, Timeout.EXPIRED)) {
+      return;
+    }
+    try {
+      timeout.expire();
+    } catch (Throwable t) {
+      log.error("Caught unexpected Throwable", t);
+    }
+  }
+
+  private void scheduleWakeup() {
+    if (pending == 0) {
+      return;
+    }
+    // There's something in at least one bucket - wake up on the first one, even if what's in it is due on a later
+    // turn of the wheel
+    for (long t = tick + 1; t <= tick + WHEEL_SIZE; t++) {
+      if (buckets[(int)t & mask] != null) {
+        if (t < wakeTick) {
+          wakeAt(t);
+        }
+        return;
+      }
+    }
+  }
+
+  private void wakeAt(long due) {
+    if (wakeFuture != null) {
+      wakeFuture.cancel(false);
+    }
+    wakeTick = due;
+    long delay = Math.max(0, startTime + due * TICK_NANOS - System.nanoTime());
+    wakeFuture = eventLoop.schedule(expirer, delay, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * A timeout on the wheel. A one-shot timeout fires at most once, a periodic one until it's cancelled.
+   */
+  static abstract class Timeout {
+
+    private static final int ACTIVE = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private volatile int state;
+    private final TimerWheel wheel;
+    private long deadline;
+    private long period;
+
+    // Only touched on the event loop
+    private long tick;
+    private int bucket = -1;
+    private Timeout prev;
+    private Timeout next;
+
+    /**
+     * The timeout belongs to its wheel from the start, so it can be cancelled as soon as it's been handed out, even
+     * before it's scheduled
+     */
+    protected Timeout(TimerWheel wheel) {
+      this.wheel = wheel;
+    }
+
+    /**
+     * Called on the event loop when the timeout is due
+     */
+    protected abstract void expire();
+
+    /**
+     * Cancel the timeout. Can be called from any thread.
+     *
+     * @return true if it was cancelled, false if it had already fired or been cancelled
+     */
+    boolean cancel() {
+      if (STATE.compareAndSet(this, ACTIVE, CANCELLED)) {
+        wheel.cancel(this);
+        return true;
+      }
+      return false;
+    }
+  }
+}
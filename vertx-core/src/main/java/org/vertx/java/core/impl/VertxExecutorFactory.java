@@ -18,6 +18,7 @@ package org.vertx.java.core.impl;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import org.vertx.java.core.impl.management.ManagementRegistry;
+import org.vertx.java.core.net.impl.Transport;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -41,7 +42,7 @@ public class VertxExecutorFactory {
   // The worker pool needs to be fixed with a backing queue
   public static ExecutorService workerPool(String poolName) {
     int maxSize = Integer.getInteger("vertx.pool.worker.size", WORKER_POOL_MAX_SIZE);
-    ExecutorService exec = Executors.newFixedThreadPool(maxSize, new VertxThreadFactory(poolName));
+    ExecutorService exec = Executors.newFixedThreadPool(maxSize, new VertxThreadFactory(poolName, true));
     ManagementRegistry.registerThreadPool("Worker", exec);
     return exec;
   }
@@ -49,7 +50,21 @@ public class VertxExecutorFactory {
   // The acceptor pools need to be fixed with a backing queue
 
   public static EventLoopGroup eventLoopGroup(String poolName) {
-    return new NioEventLoopGroup(eventLoopSize(), new VertxThreadFactory(poolName));
+    return Transport.eventLoopGroup(eventLoopSize(), new VertxThreadFactory(poolName, false));
+  }
+
+  // Zero, the default, means server sockets accept on one of the event loops their connections are handled on
+  public static int acceptorPoolSize() {
+    return Integer.getInteger("vertx.pool.acceptor.size", 0);
+  }
+
+  public static EventLoopGroup acceptorEventLoopGroup(String poolName) {
+    return Transport.eventLoopGroup(acceptorPoolSize(), new VertxThreadFactory(poolName, false));
+  }
+
+  // Only needed when the event loops are native ones
+  public static EventLoopGroup nioEventLoopGroup(String poolName) {
+    return new NioEventLoopGroup(Integer.getInteger("vertx.pool.nioeventloop.size", 1), new VertxThreadFactory(poolName, false));
   }
 
   public static int eventLoopSize() {
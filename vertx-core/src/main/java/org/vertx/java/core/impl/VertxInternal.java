@@ -17,13 +17,17 @@
 package org.vertx.java.core.impl;
 
 
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import org.vertx.java.core.http.impl.DefaultHttpServer;
+import org.vertx.java.core.impl.management.EventLoopMXBean;
+import org.vertx.java.core.impl.management.EventLoopMXBeanImpl;
 import org.vertx.java.core.net.impl.DefaultNetServer;
 import org.vertx.java.core.net.impl.ServerID;
 import org.vertx.java.core.spi.VertxSPI;
 import org.vertx.java.core.spi.cluster.ClusterManager;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
@@ -38,12 +42,57 @@ public interface VertxInternal extends VertxSPI {
 
   EventLoopGroup getEventLoopGroup();
 
+  /**
+   * Event loops for the channels which only have a NIO implementation, such as datagram channels. The same as
+   * {@link #getEventLoopGroup()} unless the native transport is in use
+   */
+  EventLoopGroup getNioEventLoopGroup();
+
+  /**
+   * Event loops dedicated to accepting connections for the net and HTTP servers, or null if servers accept on one of
+   * the event loops they handle connections on
+   */
+  EventLoopGroup getAcceptorEventLoopGroup();
+
+  /**
+   * Statistics for each of the event loops, in the order they're in the group
+   */
+  List<EventLoopMXBean> getEventLoopMetrics();
+
+  /**
+   * @return the statistics for one of the event loops, or null if it isn't one of ours
+   */
+  EventLoopMXBeanImpl getEventLoopMetrics(EventLoop eventLoop);
+
   ExecutorService getBackgroundPool();
 
   DefaultContext startOnEventLoop(Runnable runnable);
 
+  /**
+   * Start on a new context on the given event loop
+   */
+  DefaultContext startOnEventLoop(Runnable runnable, EventLoop eventLoop);
+
   DefaultContext startInBackground(Runnable runnable, boolean multiThreaded);
 
+  /**
+   * Start on a new worker context, which uses the given event loop for its I/O
+   */
+  DefaultContext startInBackground(Runnable runnable, boolean multiThreaded, EventLoop eventLoop);
+
+  /**
+   * Choose the event loop for a new context. By default this is round robin, but with the
+   * {@code vertx.eventloop.assignment} system property set to {@code contexts} it's the event loop with the fewest
+   * deployed verticle instances, and with it set to {@code busy} it's the one which has been least busy recently
+   */
+  EventLoop chooseEventLoop();
+
+  /**
+   * Choose event loops for a number of contexts which should be spread over them, such as the instances of a
+   * verticle. The event loops are distinct as long as there are enough of them, the least loaded first.
+   */
+  List<EventLoop> chooseEventLoops(int count);
+
   DefaultContext getOrCreateContext();
 
   void reportException(Throwable t);
@@ -19,12 +19,25 @@ package org.vertx.java.core.impl;
 /**
  * @author <a href="mailto:nmaurer@redhat.com">Norman Maurer</a>
  */
-final class VertxThread extends Thread {
+public final class VertxThread extends Thread {
 
+    private final boolean worker;
     private DefaultContext context;
 
-    public VertxThread(Runnable target, String name) {
+    // When the current task started, or 0 if there isn't one. Read by the BlockedThreadChecker
+    private volatile long execStart;
+    private DefaultContext execContext;
+    // Only updated by the thread itself
+    private long busyTime;
+    private long tasksExecuted;
+
+    public VertxThread(Runnable target, String name, boolean worker) {
         super(target, name);
+        this.worker = worker;
+    }
+
+    boolean isWorker() {
+        return worker;
     }
 
     DefaultContext getContext() {
@@ -34,4 +47,43 @@ final class VertxThread extends Thread {
     void setContext(DefaultContext context) {
         this.context = context;
     }
+
+    boolean isExecuting() {
+        return execStart != 0;
+    }
+
+    void executeStart(DefaultContext context) {
+        execContext = context;
+        // Written last so the checker sees the context too
+        execStart = System.nanoTime();
+    }
+
+    void executeEnd() {
+        long start = execStart;
+        execStart = 0;
+        busyTime += System.nanoTime() - start;
+        tasksExecuted++;
+    }
+
+    long getExecStart() {
+        return execStart;
+    }
+
+    DefaultContext getExecContext() {
+        return execContext;
+    }
+
+    /**
+     * Total time in ns spent running vert.x tasks. Only accurate when called on this thread
+     */
+    public long getBusyTime() {
+        return busyTime;
+    }
+
+    /**
+     * Only accurate when called on this thread
+     */
+    public long getTasksExecuted() {
+        return tasksExecuted;
+    }
 }
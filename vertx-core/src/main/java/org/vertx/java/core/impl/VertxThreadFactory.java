@@ -25,16 +25,19 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class VertxThreadFactory implements ThreadFactory {
 
   private final String prefix;
+  private final boolean worker;
   private final AtomicInteger threadCount = new AtomicInteger(0);
 
-  VertxThreadFactory(String prefix) {
+  VertxThreadFactory(String prefix, boolean worker) {
     this.prefix = prefix;
+    this.worker = worker;
   }
 
   public Thread newThread(Runnable runnable) {
-    Thread t = new VertxThread(runnable, prefix + threadCount.getAndIncrement());
+    VertxThread t = new VertxThread(runnable, prefix + threadCount.getAndIncrement(), worker);
     // All vert.x threads are daemons
     t.setDaemon(true);
+    BlockedThreadChecker.registerThread(t);
     return t;
   }
 }
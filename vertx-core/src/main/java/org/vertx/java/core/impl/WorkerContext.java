@@ -29,6 +29,10 @@ public class WorkerContext extends DefaultContext {
     super(vertx, orderedBgExec);
   }
 
+  public WorkerContext(VertxInternal vertx, Executor orderedBgExec, EventLoop eventLoop) {
+    super(vertx, orderedBgExec, eventLoop);
+  }
+
   public void execute(Runnable task) {
     executeOnOrderedWorkerExec(wrapTask(task));
   }
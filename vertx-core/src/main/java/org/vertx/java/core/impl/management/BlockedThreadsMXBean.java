@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package org.vertx.java.core.impl.management;
+
+/**
+ * Counts of the tasks which have blocked a vert.x thread for longer than its limit. These are for the whole JVM,
+ * however many Vertx instances there are in it.
+ */
+public interface BlockedThreadsMXBean {
+
+  /**
+   * Tasks which have blocked an event loop thread for longer than {@code vertx.blockedthread.eventloop.maxtime}
+   */
+  long getBlockedEventLoopTasks();
+
+  /**
+   * Tasks which have blocked a worker thread for longer than {@code vertx.blockedthread.worker.maxtime}
+   */
+  long getBlockedWorkerTasks();
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package org.vertx.java.core.impl.management;
+
+/**
+ * Statistics for a single event bus address on this node
+ */
+public interface EventBusAddressMXBean {
+
+  String getAddress();
+
+  long getMessagesSent();
+
+  long getMessagesPublished();
+
+  /**
+   * Messages handled at this address on this node, whichever node sent them
+   */
+  long getMessagesReceived();
+
+  /**
+   * Messages received at this address which were sent from this node
+   */
+  long getLocalDeliveries();
+
+  /**
+   * Messages received at this address which were sent from another node
+   */
+  long getRemoteDeliveries();
+
+  long getReplyTimeouts();
+
+  /**
+   * Messages sent or published to this address when there were no handlers for it
+   */
+  long getNoHandlers();
+
+  /**
+   * Messages to this address dropped instead of being handled because their deadline had passed, usually because
+   * the sender had stopped waiting for a reply
+   */
+  long getMessagesExpired();
+
+  /**
+   * Handler execution times. Element {@code i} counts executions which took less than {@code 2^i} microseconds
+   * (and at least {@code 2^(i-1)}), the last element counts everything slower than that.
+   */
+  long[] getHandlerTimeHistogram();
+
+  long getHandlerTimeTotalMicros();
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package org.vertx.java.core.impl.management;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the statistics for an address, and adds them to the totals for the event bus.
+ */
+public class EventBusAddressMXBeanImpl implements EventBusAddressMXBean {
+
+  // Up to 2^20 micros (about a second) then everything else
+  private static final int BUCKETS = 22;
+
+  private final String address;
+  private final EventBusMXBeanImpl bus;
+  private final StripedCounter sent = new StripedCounter();
+  private final StripedCounter published = new StripedCounter();
+  private final StripedCounter local = new StripedCounter();
+  private final StripedCounter remote = new StripedCounter();
+  private final StripedCounter replyTimeouts = new StripedCounter();
+  private final StripedCounter noHandlers = new StripedCounter();
+  private final StripedCounter expired = new StripedCounter();
+  private final StripedCounter handlerTime = new StripedCounter();
+  private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+  // Guarded by the bus's lock
+  boolean registered;
+  long lastActivity = -1;
+
+  public EventBusAddressMXBeanImpl(String address, EventBusMXBeanImpl bus) {
+    this.address = address;
+    this.bus = bus;
+  }
+
+  public void messageSent() {
+    sent.increment();
+    bus.sent.increment();
+  }
+
+  public void messagePublished() {
+    published.increment();
+    bus.published.increment();
+  }
+
+  public void messageReceived(boolean fromLocal) {
+    if (fromLocal) {
+      local.increment();
+    } else {
+      remote.increment();
+    }
+    bus.received.increment();
+  }
+
+  public void replyTimeout() {
+    replyTimeouts.increment();
+    bus.replyTimeouts.increment();
+  }
+
+  public void noHandlers() {
+    noHandlers.increment();
+    bus.noHandlers.increment();
+  }
+
+  public void messageExpired() {
+    expired.increment();
+    bus.expired.increment();
+  }
+
+  // Changes whenever the address is used
+  long activity() {
+    return sent.get() + published.get() + local.get() + remote.get() + replyTimeouts.get() + noHandlers.get() +
+        expired.get();
+  }
+
+  public void handlerExecuted(long nanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+    int bucket = 64 - Long.numberOfLeadingZeros(micros);
+    histogram.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+    handlerTime.add(micros);
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getAddress()
+   */
+  @Override
+  public String getAddress() {
+    return address;
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getMessagesSent()
+   */
+  @Override
+  public long getMessagesSent() {
+    return sent.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getMessagesPublished()
+   */
+  @Override
+  public long getMessagesPublished() {
+    return published.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getMessagesReceived()
+   */
+  @Override
+  public long getMessagesReceived() {
+    return local.get() + remote.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getLocalDeliveries()
+   */
+  @Override
+  public long getLocalDeliveries() {
+    return local.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getRemoteDeliveries()
+   */
+  @Override
+  public long getRemoteDeliveries() {
+    return remote.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getReplyTimeouts()
+   */
+  @Override
+  public long getReplyTimeouts() {
+    return replyTimeouts.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getNoHandlers()
+   */
+  @Override
+  public long getNoHandlers() {
+    return noHandlers.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getMessagesExpired()
+   */
+  @Override
+  public long getMessagesExpired() {
+    return expired.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getHandlerTimeHistogram()
+   */
+  @Override
+  public long[] getHandlerTimeHistogram() {
+    long[] buckets = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = histogram.get(i);
+    }
+    return buckets;
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusAddressMXBean#getHandlerTimeTotalMicros()
+   */
+  @Override
+  public long getHandlerTimeTotalMicros() {
+    return handlerTime.get();
+  }
+
+}
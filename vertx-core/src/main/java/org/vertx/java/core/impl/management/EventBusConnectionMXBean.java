@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package org.vertx.java.core.impl.management;
+
+/**
+ * Statistics for the connection from this node to another event bus node
+ */
+public interface EventBusConnectionMXBean {
+
+  String getServerID();
+
+  /**
+   * The priority lane the connection carries, or null if there's a single connection to the node
+   */
+  String getLane();
+
+  /**
+   * Messages waiting for the connection to be established or for a coalesced write
+   */
+  int getPendingMessages();
+
+  /**
+   * Size of the messages held in memory while the connection is established
+   */
+  long getPendingBytes();
+
+  /**
+   * Size of the messages spilled to disk that are still to be written to the connection
+   */
+  long getSpilledBytes();
+
+  /**
+   * Messages failed because too many were already pending
+   */
+  long getMessagesRejected();
+
+  long getBytesWritten();
+
+  /**
+   * Round trip time of the last ping, or -1 if no pong has been received yet
+   */
+  long getPingRoundTripMicros();
+
+}
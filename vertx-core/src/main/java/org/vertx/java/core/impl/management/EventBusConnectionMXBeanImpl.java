@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package org.vertx.java.core.impl.management;
+
+import org.vertx.java.core.net.impl.ServerID;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the statistics for a connection to another event bus node.
+ */
+public class EventBusConnectionMXBeanImpl implements EventBusConnectionMXBean {
+
+  private final ServerID serverID;
+  // Null unless there are priority lanes
+  private final String lane;
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicLong bytesWritten = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private volatile long pendingBytes;
+  private volatile long spilledBytes;
+  private volatile long pingRoundTrip = -1;
+
+  public EventBusConnectionMXBeanImpl(ServerID serverID) {
+    this(serverID, null);
+  }
+
+  public EventBusConnectionMXBeanImpl(ServerID serverID, String lane) {
+    this.serverID = serverID;
+    this.lane = lane;
+  }
+
+  /**
+   * Identifies the connection among the ones from this node
+   */
+  public String key() {
+    return lane == null ? getServerID() : getServerID() + "/" + lane;
+  }
+
+  public void messageQueued() {
+    pending.incrementAndGet();
+  }
+
+  public void messageDequeued() {
+    pending.decrementAndGet();
+  }
+
+  public void bytesWritten(int bytes) {
+    bytesWritten.addAndGet(bytes);
+  }
+
+  public void pendingBytes(long bytes) {
+    pendingBytes = bytes;
+  }
+
+  public void spilledBytes(long bytes) {
+    spilledBytes = bytes;
+  }
+
+  public void messageRejected() {
+    rejected.incrementAndGet();
+  }
+
+  public void pingRoundTrip(long nanos) {
+    pingRoundTrip = nanos / 1000;
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusConnectionMXBean#getServerID()
+   */
+  @Override
+  public String getServerID() {
+    return serverID.host + ":" + serverID.port;
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusConnectionMXBean#getLane()
+   */
+  @Override
+  public String getLane() {
+    return lane;
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusConnectionMXBean#getPendingMessages()
+   */
+  @Override
+  public int getPendingMessages() {
+    return pending.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusConnectionMXBean#getPendingBytes()
+   */
+  @Override
+  public long getPendingBytes() {
+    return pendingBytes;
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusConnectionMXBean#getSpilledBytes()
+   */
+  @Override
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusConnectionMXBean#getMessagesRejected()
+   */
+  @Override
+  public long getMessagesRejected() {
+    return rejected.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusConnectionMXBean#getBytesWritten()
+   */
+  @Override
+  public long getBytesWritten() {
+    return bytesWritten.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusConnectionMXBean#getPingRoundTripMicros()
+   */
+  @Override
+  public long getPingRoundTripMicros() {
+    return pingRoundTrip;
+  }
+
+}
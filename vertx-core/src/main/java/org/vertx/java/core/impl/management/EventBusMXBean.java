@@ -25,4 +25,48 @@ public interface EventBusMXBean {
 
   String getHostname();
 
+  long getMessagesSent();
+
+  long getMessagesPublished();
+
+  long getMessagesReceived();
+
+  long getReplyTimeouts();
+
+  long getNoHandlers();
+
+  /**
+   * Messages dropped instead of being handled because their deadline had passed
+   */
+  long getMessagesExpired();
+
+  /**
+   * The addresses which have their own statistics. An address gets them when it's first sent, published or
+   * delivered to on this node, or a handler is registered at it, as long as there are fewer than
+   * {@code vertx.management.eventbus.maxaddresses}. They're dropped when its last handler on this node is
+   * unregistered. Once the limit is reached, addresses without handlers on this node which haven't been used for
+   * {@code vertx.management.eventbus.addressidle} ms (default 60000) are dropped to make room. Messages for addresses
+   * without statistics of their own only count towards the totals.
+   */
+  String[] getAddresses();
+
+  String[] getConnections();
+
+  /**
+   * Frames sent to other nodes which were compressed, i.e. were over the compression threshold and got smaller
+   */
+  long getFramesCompressed();
+
+  long getFramesDecompressed();
+
+  /**
+   * The size of the frames over the compression threshold divided by the size they were sent as, including the
+   * ones which were sent uncompressed because they didn't get any smaller
+   */
+  double getCompressionRatio();
+
+  long getCompressionTimeTotalMicros();
+
+  long getDecompressionTimeTotalMicros();
+
 }
@@ -15,21 +15,164 @@
  */
 package org.vertx.java.core.impl.management;
 
+import javax.management.ObjectName;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author swilliams
  *
  */
 public class EventBusMXBeanImpl implements EventBusMXBean {
 
+  private static final int MAX_ADDRESSES = Integer.getInteger("vertx.management.eventbus.maxaddresses", 1000);
+  private static final String INTERNAL_PREFIX = "__vertx.";
+
   private final int port;
 
   private final String host;
 
+  final StripedCounter sent = new StripedCounter();
+  final StripedCounter published = new StripedCounter();
+  final StripedCounter received = new StripedCounter();
+  final StripedCounter replyTimeouts = new StripedCounter();
+  final StripedCounter noHandlers = new StripedCounter();
+  final StripedCounter expired = new StripedCounter();
+  final StripedCounter framesCompressed = new StripedCounter();
+  final StripedCounter framesDecompressed = new StripedCounter();
+  // Bytes of the frames over the compression threshold before and after compression
+  final StripedCounter compressionBytesIn = new StripedCounter();
+  final StripedCounter compressionBytesOut = new StripedCounter();
+  final StripedCounter compressionTime = new StripedCounter();
+  final StripedCounter decompressionTime = new StripedCounter();
+  final ConcurrentMap<String, EventBusAddressMXBeanImpl> addresses = new ConcurrentHashMap<>();
+  final ConcurrentMap<String, EventBusConnectionMXBeanImpl> connections = new ConcurrentHashMap<>();
+  // Collects the statistics for addresses over the limit - they only count towards the totals
+  private final EventBusAddressMXBeanImpl untracked = new EventBusAddressMXBeanImpl(null, this);
+  // How long an address without handlers on this node has to go unused before it can be dropped to make room
+  private final long idleTime = Long.getLong("vertx.management.eventbus.addressidle", 60000);
+  private volatile long nextEviction;
+  // Identifies this bus in the names of its address and connection beans
+  String key;
+  ObjectName objectName;
+
   public EventBusMXBeanImpl(String host, int port) {
     this.host = host;
     this.port = port;
   }
 
+  /**
+   * @return the statistics for an address, which gets them when it's first used if it's under the limit. Otherwise
+   * the untracked statistics
+   */
+  public EventBusAddressMXBeanImpl address(String address) {
+    EventBusAddressMXBeanImpl bean = addresses.get(address);
+    return bean == null ? track(address, false) : bean;
+  }
+
+  /**
+   * Called when a handler is registered at an address. The address's statistics are kept until its last handler is
+   * unregistered
+   */
+  public EventBusAddressMXBeanImpl addressRegistered(String address) {
+    return track(address, true);
+  }
+
+  private EventBusAddressMXBeanImpl track(String address, boolean registered) {
+    // The addresses vert.x uses internally, e.g. for each stream, are one-offs and would soon use up the limit
+    if (address.startsWith(INTERNAL_PREFIX)) {
+      return untracked;
+    }
+    if (!registered && addresses.size() >= MAX_ADDRESSES && System.currentTimeMillis() < nextEviction) {
+      // Don't take the lock for every message to an address over the limit
+      return untracked;
+    }
+    synchronized (this) {
+      EventBusAddressMXBeanImpl bean = addresses.get(address);
+      if (bean == null) {
+        if (addresses.size() >= MAX_ADDRESSES && !evictIdle()) {
+          return untracked;
+        }
+        bean = new EventBusAddressMXBeanImpl(address, this);
+        addresses.put(address, bean);
+        if (objectName != null) {
+          ManagementRegistry.registerEventBusAddress(this, bean);
+        }
+      }
+      if (registered) {
+        bean.registered = true;
+      }
+      return bean;
+    }
+  }
+
+  // Called with the lock held once the limit has been reached, at most once every idle time. Drops the addresses
+  // without handlers on this node which haven't been used since the last time round
+  private boolean evictIdle() {
+    long now = System.currentTimeMillis();
+    if (now < nextEviction) {
+      return false;
+    }
+    nextEviction = now + idleTime;
+    boolean evicted = false;
+    for (EventBusAddressMXBeanImpl bean: addresses.values()) {
+      long activity = bean.activity();
+      if (!bean.registered && activity == bean.lastActivity) {
+        addresses.remove(bean.getAddress());
+        if (objectName != null) {
+          ManagementRegistry.unregisterEventBusAddress(this, bean.getAddress());
+        }
+        evicted = true;
+      } else {
+        bean.lastActivity = activity;
+      }
+    }
+    return evicted;
+  }
+
+  /**
+   * Called when the last handler at an address is unregistered. Its statistics are dropped, which frees up its
+   * place under the limit
+   */
+  public synchronized void addressUnregistered(String address) {
+    if (addresses.remove(address) != null && objectName != null) {
+      ManagementRegistry.unregisterEventBusAddress(this, address);
+    }
+  }
+
+  /**
+   * Statistics which aren't for any particular address, e.g. timeouts waiting for a reply to a reply
+   */
+  public EventBusAddressMXBeanImpl untracked() {
+    return untracked;
+  }
+
+  public void connectionOpened(EventBusConnectionMXBeanImpl connection) {
+    connections.put(connection.key(), connection);
+    ManagementRegistry.registerEventBusConnection(this, connection);
+  }
+
+  public void connectionClosed(EventBusConnectionMXBeanImpl connection) {
+    if (connections.remove(connection.key(), connection)) {
+      ManagementRegistry.unregisterEventBusConnection(this, connection);
+    }
+  }
+
+  public void frameCompressed(int length, int compressedLength, long nanos) {
+    if (compressedLength < length) {
+      framesCompressed.increment();
+    }
+    compressionBytesIn.add(length);
+    compressionBytesOut.add(compressedLength);
+    compressionTime.add(nanos);
+  }
+
+  public void frameDecompressed(long nanos) {
+    framesDecompressed.increment();
+    decompressionTime.add(nanos);
+  }
+
   /* (non-Javadoc)
    * @see org.vertx.java.core.impl.management.EventBusMXBean#getPort()
    */
@@ -46,4 +189,109 @@ public class EventBusMXBeanImpl implements EventBusMXBean {
     return host;
   }
 
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getMessagesSent()
+   */
+  @Override
+  public long getMessagesSent() {
+    return sent.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getMessagesPublished()
+   */
+  @Override
+  public long getMessagesPublished() {
+    return published.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getMessagesReceived()
+   */
+  @Override
+  public long getMessagesReceived() {
+    return received.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getReplyTimeouts()
+   */
+  @Override
+  public long getReplyTimeouts() {
+    return replyTimeouts.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getNoHandlers()
+   */
+  @Override
+  public long getNoHandlers() {
+    return noHandlers.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getMessagesExpired()
+   */
+  @Override
+  public long getMessagesExpired() {
+    return expired.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getAddresses()
+   */
+  @Override
+  public String[] getAddresses() {
+    return addresses.keySet().toArray(new String[0]);
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getConnections()
+   */
+  @Override
+  public String[] getConnections() {
+    return connections.keySet().toArray(new String[0]);
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getFramesCompressed()
+   */
+  @Override
+  public long getFramesCompressed() {
+    return framesCompressed.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getFramesDecompressed()
+   */
+  @Override
+  public long getFramesDecompressed() {
+    return framesDecompressed.get();
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getCompressionRatio()
+   */
+  @Override
+  public double getCompressionRatio() {
+    long out = compressionBytesOut.get();
+    return out == 0 ? 1 : (double)compressionBytesIn.get() / out;
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getCompressionTimeTotalMicros()
+   */
+  @Override
+  public long getCompressionTimeTotalMicros() {
+    return TimeUnit.NANOSECONDS.toMicros(compressionTime.get());
+  }
+
+  /* (non-Javadoc)
+   * @see org.vertx.java.core.impl.management.EventBusMXBean#getDecompressionTimeTotalMicros()
+   */
+  @Override
+  public long getDecompressionTimeTotalMicros() {
+    return TimeUnit.NANOSECONDS.toMicros(decompressionTime.get());
+  }
+
 }
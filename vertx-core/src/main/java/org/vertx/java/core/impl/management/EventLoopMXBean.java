@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package org.vertx.java.core.impl.management;
+
+/**
+ * Statistics for one of the event loops. The rates are sampled on the event loop itself, by default every second,
+ * so they aren't updated while it's blocked.
+ */
+public interface EventLoopMXBean {
+
+  /**
+   * The name of the event loop's thread, or null until it has started
+   */
+  String getName();
+
+  /**
+   * Tasks queued on the event loop waiting to run
+   */
+  int getPendingTasks();
+
+  /**
+   * The fraction of the last sample interval the event loop spent running vert.x tasks, from 0 (idle) to 1
+   */
+  double getBusyRatio();
+
+  double getTasksPerSecond();
+
+  long getTasksExecuted();
+
+  /**
+   * The I/O ratio the event loop is configured with, i.e. the percentage of time it aims to spend on I/O rather than
+   * tasks, or -1 if this transport doesn't have one. This is a setting, not a measurement. See {@link #getBusyRatio()}
+   * for how busy the event loop actually is
+   */
+  int getConfiguredIoRatio();
+
+  /**
+   * Net and HTTP connections registered with the event loop
+   */
+  int getChannels();
+
+  /**
+   * Verticle instances deployed on the event loop which haven't been undeployed
+   */
+  int getContexts();
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package org.vertx.java.core.impl.management;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.nio.NioEventLoop;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.vertx.java.core.impl.VertxThread;
+
+import javax.management.ObjectName;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the statistics for an event loop.<p>
+ * Busy time and task counts are kept by the event loop's thread as it runs tasks, and turned into rates by a task
+ * scheduled on the event loop every {@code vertx.eventloop.metrics.interval} ms. The task is only scheduled once
+ * the rates are first asked for, by a JMX client or by an event loop assignment strategy which needs them.
+ */
+public class EventLoopMXBeanImpl implements EventLoopMXBean {
+
+  private static final long INTERVAL = Long.getLong("vertx.eventloop.metrics.interval", 1000);
+
+  private final EventLoop eventLoop;
+  private final int index;
+  private final AtomicInteger channels = new AtomicInteger();
+  private final AtomicInteger contexts = new AtomicInteger();
+  private final AtomicBoolean sampling = new AtomicBoolean();
+  // Set when it's registered with JMX
+  ObjectName objectName;
+  private volatile String name;
+  private volatile double busyRatio;
+  private volatile double tasksPerSecond;
+  private volatile long tasksExecuted;
+
+  // Only touched on the event loop
+  private long lastSample;
+  private long lastBusyTime;
+  private long lastTasksExecuted;
+
+  public EventLoopMXBeanImpl(EventLoop eventLoop, int index) {
+    this.eventLoop = eventLoop;
+    this.index = index;
+  }
+
+  private void startSampling() {
+    if (INTERVAL > 0 && !sampling.get() && sampling.compareAndSet(false, true)) {
+      eventLoop.scheduleAtFixedRate(new Runnable() {
+        public void run() {
+          sample();
+        }
+      }, 0, INTERVAL, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void sample() {
+    Thread current = Thread.currentThread();
+    if (!(current instanceof VertxThread)) {
+      return;
+    }
+    VertxThread thread = (VertxThread)current;
+    long now = System.nanoTime();
+    long busyTime = thread.getBusyTime();
+    long tasks = thread.getTasksExecuted();
+    if (lastSample == 0) {
+      name = thread.getName();
+    } else {
+      long elapsed = now - lastSample;
+      // A task is counted when it finishes, so one that spans samples can push the ratio over 1
+      busyRatio = Math.min(1d, (double)(busyTime - lastBusyTime) / elapsed);
+      tasksPerSecond = (tasks - lastTasksExecuted) * (double)TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+    tasksExecuted = tasks;
+    lastSample = now;
+    lastBusyTime = busyTime;
+    lastTasksExecuted = tasks;
+  }
+
+  public EventLoop getEventLoop() {
+    return eventLoop;
+  }
+
+  /**
+   * The event loop's position in its group
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  public void channelRegistered() {
+    channels.incrementAndGet();
+  }
+
+  public void channelUnregistered() {
+    channels.decrementAndGet();
+  }
+
+  public void contextCreated() {
+    contexts.incrementAndGet();
+  }
+
+  public void contextClosed() {
+    contexts.decrementAndGet();
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public int getPendingTasks() {
+    return eventLoop instanceof SingleThreadEventExecutor ? ((SingleThreadEventExecutor)eventLoop).pendingTasks() : 0;
+  }
+
+  @Override
+  public double getBusyRatio() {
+    startSampling();
+    return busyRatio;
+  }
+
+  @Override
+  public double getTasksPerSecond() {
+    startSampling();
+    return tasksPerSecond;
+  }
+
+  @Override
+  public long getTasksExecuted() {
+    startSampling();
+    return tasksExecuted;
+  }
+
+  @Override
+  public int getConfiguredIoRatio() {
+    return eventLoop instanceof NioEventLoop ? ((NioEventLoop)eventLoop).getIoRatio() : -1;
+  }
+
+  @Override
+  public int getChannels() {
+    return channels.get();
+  }
+
+  @Override
+  public int getContexts() {
+    return contexts.get();
+  }
+}
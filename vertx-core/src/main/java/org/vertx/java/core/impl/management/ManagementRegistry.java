@@ -19,6 +19,7 @@ import org.vertx.java.core.net.impl.ServerID;
 
 import javax.management.*;
 import java.lang.management.ManagementFactory;
+import java.util.Collection;
 import java.util.Hashtable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -35,21 +36,143 @@ public class ManagementRegistry {
 
   private static final MBeanServer platformMBeanServer = ManagementFactory.getPlatformMBeanServer();
 
-  public static void registerEventBus(ServerID serverID) {
-    if (!MANAGEMENT_ENABLED) return;
+  private static int eventBusInstances;
+  private static int vertxInstances;
+
+  /**
+   * @return the bean to record the event bus statistics with, or null if management isn't enabled
+   */
+  public static synchronized EventBusMXBeanImpl registerEventBus(ServerID serverID) {
+    if (!MANAGEMENT_ENABLED) return null;
 
     try {
+      EventBusMXBeanImpl eventBusMXBean = new EventBusMXBeanImpl(serverID.host, serverID.port);
       ObjectName eventBusName = ObjectName.getInstance(DOMAIN, "Name", "EventBus");
       if (!platformMBeanServer.isRegistered(eventBusName)) {
-        EventBusMXBean eventBusMXBean = new EventBusMXBeanImpl(serverID.host, serverID.port);
-        platformMBeanServer.registerMBean(eventBusMXBean, eventBusName);
+        eventBusMXBean.key = "0";
+      } else {
+        // There's more than one event bus in this JVM
+        eventBusMXBean.key = String.valueOf(++eventBusInstances);
+        Hashtable<String, String> table = new Hashtable<>();
+        table.put("Name", "EventBus");
+        table.put("Instance", eventBusMXBean.key);
+        eventBusName = ObjectName.getInstance(DOMAIN, table);
       }
+      platformMBeanServer.registerMBean(eventBusMXBean, eventBusName);
+      eventBusMXBean.objectName = eventBusName;
+      return eventBusMXBean;
     } catch (MalformedObjectNameException | InstanceAlreadyExistsException
         | MBeanRegistrationException | NotCompliantMBeanException e) {
       throw new VertxManagementException(e);
     }
   }
 
+  public static synchronized void unregisterEventBus(EventBusMXBeanImpl eventBusMXBean) {
+    for (String address: eventBusMXBean.addresses.keySet()) {
+      unregister(addressName(eventBusMXBean, address));
+    }
+    for (EventBusConnectionMXBeanImpl connection: eventBusMXBean.connections.values()) {
+      unregister(connectionName(eventBusMXBean, connection));
+    }
+    unregister(eventBusMXBean.objectName);
+  }
+
+  static void registerEventBusAddress(EventBusMXBeanImpl eventBusMXBean, EventBusAddressMXBeanImpl addressMXBean) {
+    register(addressMXBean, addressName(eventBusMXBean, addressMXBean.getAddress()));
+  }
+
+  static void unregisterEventBusAddress(EventBusMXBeanImpl eventBusMXBean, String address) {
+    unregister(addressName(eventBusMXBean, address));
+  }
+
+  static void registerEventBusConnection(EventBusMXBeanImpl eventBusMXBean,
+                                         EventBusConnectionMXBeanImpl connectionMXBean) {
+    register(connectionMXBean, connectionName(eventBusMXBean, connectionMXBean));
+  }
+
+  static void unregisterEventBusConnection(EventBusMXBeanImpl eventBusMXBean,
+                                           EventBusConnectionMXBeanImpl connectionMXBean) {
+    unregister(connectionName(eventBusMXBean, connectionMXBean));
+  }
+
+  private static ObjectName addressName(EventBusMXBeanImpl eventBusMXBean, String address) {
+    Hashtable<String, String> table = new Hashtable<>();
+    table.put("type", "EventBusAddress");
+    table.put("EventBus", eventBusMXBean.key);
+    table.put("address", ObjectName.quote(address));
+    return objectName(table);
+  }
+
+  private static ObjectName connectionName(EventBusMXBeanImpl eventBusMXBean,
+                                           EventBusConnectionMXBeanImpl connectionMXBean) {
+    Hashtable<String, String> table = new Hashtable<>();
+    table.put("type", "EventBusConnection");
+    table.put("EventBus", eventBusMXBean.key);
+    table.put("serverID", ObjectName.quote(connectionMXBean.getServerID()));
+    if (connectionMXBean.getLane() != null) {
+      table.put("lane", connectionMXBean.getLane());
+    }
+    return objectName(table);
+  }
+
+  private static ObjectName objectName(Hashtable<String, String> table) {
+    try {
+      return ObjectName.getInstance(DOMAIN, table);
+    } catch (MalformedObjectNameException e) {
+      throw new VertxManagementException(e);
+    }
+  }
+
+  private static synchronized void register(Object mxBean, ObjectName name) {
+    try {
+      if (!platformMBeanServer.isRegistered(name)) {
+        platformMBeanServer.registerMBean(mxBean, name);
+      }
+    } catch (InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+      throw new VertxManagementException(e);
+    }
+  }
+
+  private static synchronized void unregister(ObjectName name) {
+    try {
+      if (platformMBeanServer.isRegistered(name)) {
+        platformMBeanServer.unregisterMBean(name);
+      }
+    } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+      throw new VertxManagementException(e);
+    }
+  }
+
+  /**
+   * Registers the event loops of a Vertx instance. There can be more than one instance in a JVM, so each one's event
+   * loops are told apart by a key of their own. The blocked thread counts are for the whole JVM, so they're registered
+   * along with the first instance's event loops and stay registered
+   */
+  public static synchronized void registerEventLoops(Collection<EventLoopMXBeanImpl> eventLoopMXBeans) {
+    if (!MANAGEMENT_ENABLED) return;
+
+    Hashtable<String, String> blockedTable = new Hashtable<>();
+    blockedTable.put("type", "BlockedThreads");
+    register(new BlockedThreadsMXBeanImpl(), objectName(blockedTable));
+    String key = String.valueOf(vertxInstances++);
+    for (EventLoopMXBeanImpl eventLoopMXBean: eventLoopMXBeans) {
+      Hashtable<String, String> table = new Hashtable<>();
+      table.put("type", "EventLoop");
+      table.put("Vertx", key);
+      table.put("index", String.valueOf(eventLoopMXBean.getIndex()));
+      eventLoopMXBean.objectName = objectName(table);
+      register(eventLoopMXBean, eventLoopMXBean.objectName);
+    }
+  }
+
+  public static synchronized void unregisterEventLoops(Collection<EventLoopMXBeanImpl> eventLoopMXBeans) {
+    for (EventLoopMXBeanImpl eventLoopMXBean: eventLoopMXBeans) {
+      if (eventLoopMXBean.objectName != null) {
+        unregister(eventLoopMXBean.objectName);
+      }
+    }
+  }
+
   public static void registerThreadPool(String name, ExecutorService service) {
     if (!MANAGEMENT_ENABLED) return;
 
@@ -85,6 +85,21 @@ public abstract class ConnectionBase {
     }
   }
 
+  /**
+   * Flush any writes previously queued with {@link #queueForWrite(Object)}
+   */
+  public void flush() {
+    needsFlush = false;
+    channel.flush();
+  }
+
+  /**
+   * @return the event loop the underlying channel is registered with
+   */
+  public EventLoop eventLoop() {
+    return channel.eventLoop();
+  }
+
   /**
    * Close the connection
    */
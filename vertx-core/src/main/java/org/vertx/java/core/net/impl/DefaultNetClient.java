@@ -18,7 +18,6 @@ package org.vertx.java.core.net.impl;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.concurrent.Future;
@@ -310,7 +309,7 @@ public class DefaultNetClient implements NetClient {
 
       bootstrap = new Bootstrap();
       bootstrap.group(actualCtx.getEventLoop());
-      bootstrap.channel(NioSocketChannel.class);
+      bootstrap.channel(Transport.socketChannel());
       bootstrap.handler(new ChannelInitializer<Channel>() {
         @Override
         protected void initChannel(Channel ch) throws Exception {
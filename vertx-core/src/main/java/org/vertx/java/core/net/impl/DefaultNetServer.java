@@ -23,7 +23,6 @@ import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.ChannelGroupFuture;
 import io.netty.channel.group.ChannelGroupFutureListener;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.concurrent.Future;
@@ -116,8 +115,7 @@ public class DefaultNetServer implements NetServer, Closeable {
         serverChannelGroup = new DefaultChannelGroup("vertx-acceptor-channels", GlobalEventExecutor.INSTANCE);
 
         ServerBootstrap bootstrap = new ServerBootstrap();
-        bootstrap.group(availableWorkers);
-        bootstrap.channel(NioServerSocketChannel.class);
+        bootstrap.channel(Transport.serverSocketChannel());
         tcpHelper.checkSSL(vertx);
 
         bootstrap.childHandler(new ChannelInitializer<Channel>() {
@@ -145,7 +143,7 @@ public class DefaultNetServer implements NetServer, Closeable {
 
         try {
           InetSocketAddress addr = new InetSocketAddress(InetAddress.getByName(host), port);
-          bindFuture = bootstrap.bind(addr).addListener(new ChannelFutureListener() {
+          bindFuture = Transport.bind(vertx, bootstrap, availableWorkers, addr, serverChannelGroup).addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture future) throws Exception {
               runListeners();
@@ -165,7 +163,6 @@ public class DefaultNetServer implements NetServer, Closeable {
               }
             }
           });
-          serverChannelGroup.add(bindFuture.channel());
         } catch (final Throwable t) {
           // Make sure we send the exception back through the handler (if any)
           if (listenHandler != null) {
@@ -298,11 +298,14 @@ public class DefaultNetSocket extends ConnectionBase implements NetSocket {
       public void operationComplete(final Future<Channel> future) throws Exception {
         if (context.isOnCorrectWorker(channel.eventLoop())) {
           if (future.isSuccess()) {
+            boolean timed = DefaultContext.executeStart(context);
             try {
               vertx.setContext(context);
               handler.handle(null);
             } catch (Throwable t) {
               context.reportException(t);
+            } finally {
+              DefaultContext.executeEnd(timed);
             }
           } else {
             context.reportException(future.cause());
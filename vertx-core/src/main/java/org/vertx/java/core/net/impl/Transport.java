@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.net.impl;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.vertx.java.core.impl.DefaultContext;
+import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Chooses the Netty transport for TCP sockets. Netty's native epoll transport is used when the {@code vertx.epoll}
+ * system property is set and it can be loaded, which is only on Linux. Otherwise, or if it fails to load, it's NIO.<p>
+ * Epoll channels can only be registered with epoll event loops, and this version of Netty has no epoll datagram
+ * channel, so when epoll is in use datagram sockets and the DNS client stay on NIO and run on event loops of their
+ * own, see {@link org.vertx.java.core.impl.VertxInternal#getNioEventLoopGroup()}.<p>
+ * The epoll transport in this version of Netty is still experimental. Notably connecting to a port nothing is
+ * listening on, or listening on a port which is in use, aren't always reported as failures.
+ */
+public final class Transport {
+
+  private static final Logger log = LoggerFactory.getLogger(Transport.class);
+
+  public static final boolean EPOLL = epollAvailable();
+
+  private Transport() {
+  }
+
+  public static EventLoopGroup eventLoopGroup(int threads, ThreadFactory threadFactory) {
+    return EPOLL ? new EpollEventLoopGroup(threads, threadFactory) : new NioEventLoopGroup(threads, threadFactory);
+  }
+
+  public static Class<? extends ServerChannel> serverSocketChannel() {
+    return EPOLL ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+  }
+
+  public static Class<? extends SocketChannel> socketChannel() {
+    return EPOLL ? EpollSocketChannel.class : NioSocketChannel.class;
+  }
+
+  /**
+   * Binds a server whose connections are handled on the workers, and adds its server socket to the channel group.<p>
+   * The server socket is registered with a dedicated acceptor event loop when the {@code vertx.pool.acceptor.size}
+   * system property is set, so a burst of new connections doesn't queue behind the I/O of the connections on one of
+   * the workers, and servers on different ports accept on different threads. Each time an acceptor finds its server
+   * socket ready it accepts up to {@code vertx.net.acceptor.acceptsperread} connections. Without acceptors the server socket is registered with one of the workers.<p>
+   * This version of Netty can't set {@code SO_REUSEPORT}, not even with the native transport, so a port is always
+   * served by a single server socket.
+   */
+  public static ChannelFuture bind(VertxInternal vertx, ServerBootstrap bootstrap, EventLoopGroup workers,
+                                   InetSocketAddress addr, ChannelGroup channels) {
+    EventLoopGroup acceptors = vertx.getAcceptorEventLoopGroup();
+    if (acceptors == null) {
+      bootstrap.group(workers);
+    } else {
+      bootstrap.group(acceptors, workers);
+      // Rather than Netty's default 16
+      bootstrap.option(ChannelOption.MAX_MESSAGES_PER_READ, Integer.getInteger("vertx.net.acceptor.acceptsperread", 64));
+    }
+    ChannelFuture future = bootstrap.bind(addr);
+    channels.add(future.channel());
+    return future;
+  }
+
+  /**
+   * @return the event loop to register a NIO only channel for the context with. Events for the channel are handled on
+   * the context whichever it is, as for any channel
+   */
+  public static EventLoop nioEventLoop(VertxInternal vertx, DefaultContext context) {
+    return EPOLL ? vertx.getNioEventLoopGroup().next() : context.getEventLoop();
+  }
+
+  private static boolean epollAvailable() {
+    if (!Boolean.getBoolean("vertx.epoll")) {
+      return false;
+    }
+    if (!System.getProperty("os.name", "").toLowerCase().startsWith("linux")) {
+      log.info("Native epoll transport is only available on Linux, using NIO");
+      return false;
+    }
+    try {
+      // Loads the native library
+      Class.forName("io.netty.channel.epoll.Native", true, Transport.class.getClassLoader());
+      return true;
+    } catch (Throwable t) {
+      log.warn("Failed to load the native epoll transport, using NIO", t);
+      return false;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import org.vertx.java.core.impl.DefaultContext;
 import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.impl.management.EventLoopMXBeanImpl;
 
 import java.util.Map;
 
@@ -62,6 +63,24 @@ public abstract class VertxHandler<C extends ConnectionBase> extends ChannelDupl
     return buf;
   }
 
+  @Override
+  public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
+    EventLoopMXBeanImpl metrics = vertx.getEventLoopMetrics(ctx.channel().eventLoop());
+    if (metrics != null) {
+      metrics.channelRegistered();
+    }
+    super.channelRegistered(ctx);
+  }
+
+  @Override
+  public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
+    EventLoopMXBeanImpl metrics = vertx.getEventLoopMetrics(ctx.channel().eventLoop());
+    if (metrics != null) {
+      metrics.channelUnregistered();
+    }
+    super.channelUnregistered(ctx);
+  }
+
   @Override
   public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
     final Channel ch = ctx.channel();
@@ -70,11 +89,14 @@ public abstract class VertxHandler<C extends ConnectionBase> extends ChannelDupl
       conn.setWritable(ctx.channel().isWritable());
       DefaultContext context = getContext(conn);
       if (context.isOnCorrectWorker(ch.eventLoop())) {
+        boolean timed = DefaultContext.executeStart(context);
         try {
           vertx.setContext(context);
           conn.handleInterestedOpsChanged();
         } catch (Throwable t) {
           context.reportException(t);
+        } finally {
+          DefaultContext.executeEnd(timed);
         }
       } else {
         context.execute(new Runnable() {
@@ -153,7 +175,13 @@ public abstract class VertxHandler<C extends ConnectionBase> extends ChannelDupl
     } else {
       context = null;
     }
-    channelRead(connection, context, chctx, message);
+    // Reads from event loop contexts are handled inline, so they're timed here rather than by the context
+    boolean timed = DefaultContext.executeStart(context);
+    try {
+      channelRead(connection, context, chctx, message);
+    } finally {
+      DefaultContext.executeEnd(timed);
+    }
   }
 
   protected abstract void channelRead(C connection, DefaultContext context, ChannelHandlerContext chctx, Object msg) throws Exception;
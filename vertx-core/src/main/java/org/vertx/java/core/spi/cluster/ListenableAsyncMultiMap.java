@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.spi.cluster;
+
+/**
+ *
+ * An {@link AsyncMultiMap} which can notify listeners of changes.
+ *
+ * Implementing this is optional. When the map vert.x uses for event bus subscriptions implements it, the event bus
+ * keeps its own synchronous cache of the subscriptions and only calls {@link #get} on a cache miss.
+ *
+ */
+public interface ListenableAsyncMultiMap<K, V> extends AsyncMultiMap<K, V> {
+
+  void addListener(MultiMapListener<K, V> listener);
+
+  void removeListener(MultiMapListener<K, V> listener);
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.core.spi.cluster;
+
+/**
+ *
+ * A MultiMapListener is called when entries are added to or removed from a {@link ListenableAsyncMultiMap}, on
+ * whichever node the change was made.
+ *
+ */
+public interface MultiMapListener<K, V> {
+
+  /**
+   * A value has been added for the key
+   */
+  void entryAdded(K k, V v);
+
+  /**
+   * A value has been removed for the key
+   */
+  void entryRemoved(K k, V v);
+}
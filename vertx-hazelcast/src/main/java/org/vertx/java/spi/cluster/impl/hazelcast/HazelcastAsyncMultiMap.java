@@ -26,18 +26,21 @@ import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 import org.vertx.java.core.spi.Action;
 import org.vertx.java.core.spi.VertxSPI;
-import org.vertx.java.core.spi.cluster.AsyncMultiMap;
 import org.vertx.java.core.spi.cluster.ChoosableIterable;
+import org.vertx.java.core.spi.cluster.ListenableAsyncMultiMap;
+import org.vertx.java.core.spi.cluster.MultiMapListener;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
-class HazelcastAsyncMultiMap<K, V> implements AsyncMultiMap<K, V>, EntryListener<K, V> {
+class HazelcastAsyncMultiMap<K, V> implements ListenableAsyncMultiMap<K, V>, EntryListener<K, V> {
 
   private static final Logger log = LoggerFactory.getLogger(HazelcastAsyncMultiMap.class);
 
@@ -56,6 +59,8 @@ class HazelcastAsyncMultiMap<K, V> implements AsyncMultiMap<K, V>, EntryListener
     */
   private ConcurrentMap<K, ChoosableSet<V>> cache = new ConcurrentHashMap<>();
 
+  private final List<MultiMapListener<K, V>> listeners = new CopyOnWriteArrayList<>();
+
   public HazelcastAsyncMultiMap(VertxSPI vertx, com.hazelcast.core.MultiMap<K, V> map) {
     this.vertx = vertx;
     this.map = map;
@@ -141,9 +146,22 @@ class HazelcastAsyncMultiMap<K, V> implements AsyncMultiMap<K, V>, EntryListener
     }, completionHandler);
   }
 
+  @Override
+  public void addListener(MultiMapListener<K, V> listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void removeListener(MultiMapListener<K, V> listener) {
+    listeners.remove(listener);
+  }
+
   @Override
   public void entryAdded(EntryEvent<K, V> entry) {
     addEntry(entry.getKey(), entry.getValue());
+    for (MultiMapListener<K, V> listener: listeners) {
+      listener.entryAdded(entry.getKey(), entry.getValue());
+    }
   }
 
   private void addEntry(K k, V v) {
@@ -161,6 +179,9 @@ class HazelcastAsyncMultiMap<K, V> implements AsyncMultiMap<K, V>, EntryListener
   @Override
   public void entryRemoved(EntryEvent<K, V> entry) {
     removeEntry(entry.getKey(), entry.getValue());
+    for (MultiMapListener<K, V> listener: listeners) {
+      listener.entryRemoved(entry.getKey(), entry.getValue());
+    }
   }
 
   private void removeEntry(K k, V v) {
@@ -180,6 +201,9 @@ class HazelcastAsyncMultiMap<K, V> implements AsyncMultiMap<K, V>, EntryListener
     if (entries != null) {
       entries.add(entry.getValue());
     }
+    for (MultiMapListener<K, V> listener: listeners) {
+      listener.entryAdded(k, entry.getValue());
+    }
   }
 
   @Override
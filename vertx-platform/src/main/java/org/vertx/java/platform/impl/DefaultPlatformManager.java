@@ -17,6 +17,7 @@
 package org.vertx.java.platform.impl;
 
 
+import io.netty.channel.EventLoop;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Handler;
@@ -879,7 +880,7 @@ public class DefaultPlatformManager implements PlatformManagerInternal, ModuleRe
       loadIncludedModules(modRoot, currentModDir, mr, includes);
     }
     doDeploy(depName, false, worker, multiThreaded, null, main, null, config, urls, null, instances, currentModDir, mr, modRoot, false,
-             loadFromModuleFirst, doneHandler);
+             loadFromModuleFirst, false, doneHandler);
   }
 
 
@@ -1075,7 +1076,7 @@ public class DefaultPlatformManager implements PlatformManagerInternal, ModuleRe
 
     doDeploy(depName, autoRedeploy, worker, multiThreaded, fields.getLangMod(), main, modID, config,
         moduleClasspath.toArray(new URL[moduleClasspath.size()]), includedCP, instances, modDirToUse, mr,
-        modRoot, ha, fields.isLoadFromModuleFirst(), new Handler<AsyncResult<String>>() {
+        modRoot, ha, fields.isLoadFromModuleFirst(), fields.isDistinctEventLoops(), new Handler<AsyncResult<String>>() {
       @Override
       public void handle(AsyncResult<String> res) {
         if (res.succeeded()) {
@@ -1590,6 +1591,7 @@ public class DefaultPlatformManager implements PlatformManagerInternal, ModuleRe
                         final File modRoot,
                         final boolean ha,
                         final boolean loadFromModuleFirst,
+                        boolean distinctEventLoops,
                         Handler<AsyncResult<String>> dHandler) {
     checkWorkerContext();
 
@@ -1710,6 +1712,9 @@ public class DefaultPlatformManager implements PlatformManagerInternal, ModuleRe
 
     deployments.put(deploymentID, deployment);
 
+    // Null unless the instances have been placed on particular event loops
+    List<EventLoop> eventLoops = distinctEventLoops ? vertx.chooseEventLoops(instances) : null;
+
     try {
       for (int i = 0; i < instances; i++) {
         // Launch the verticle instance
@@ -1744,10 +1749,11 @@ public class DefaultPlatformManager implements PlatformManagerInternal, ModuleRe
           }
         };
 
+        EventLoop eventLoop = eventLoops == null ? null : eventLoops.get(i);
         if (worker) {
-          vertx.startInBackground(runner, multiThreaded);
+          vertx.startInBackground(runner, multiThreaded, eventLoop);
         } else {
-          vertx.startOnEventLoop(runner);
+          vertx.startOnEventLoop(runner, eventLoop);
         }
       }
     } finally {
@@ -96,6 +96,13 @@ public class ModuleFields {
     return getBooleanField("load-from-module-first");
   }
 
+  /*
+  Put each instance of the module on a different event loop, as far as there are enough of them
+   */
+  public boolean isDistinctEventLoops() {
+    return getBooleanField("distinct-event-loops");
+  }
+
   private boolean getBooleanField(String name) {
     Boolean res = conf.getBoolean(name);
     if (res == null) {
@@ -16,6 +16,7 @@
 
 package org.vertx.java.platform.impl;
 
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Context;
@@ -31,6 +32,8 @@ import org.vertx.java.core.http.impl.DefaultHttpServer;
 import org.vertx.java.core.impl.DefaultContext;
 import org.vertx.java.core.impl.EventLoopContext;
 import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.impl.management.EventLoopMXBean;
+import org.vertx.java.core.impl.management.EventLoopMXBeanImpl;
 import org.vertx.java.core.net.NetClient;
 import org.vertx.java.core.net.NetServer;
 import org.vertx.java.core.net.impl.DefaultNetServer;
@@ -41,6 +44,7 @@ import org.vertx.java.core.spi.Action;
 import org.vertx.java.core.spi.cluster.ClusterManager;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
@@ -86,6 +90,26 @@ public class WrappedVertx implements VertxInternal {
     return vertx.getEventLoopGroup();
   }
 
+  @Override
+  public EventLoopGroup getNioEventLoopGroup() {
+    return vertx.getNioEventLoopGroup();
+  }
+
+  @Override
+  public EventLoopGroup getAcceptorEventLoopGroup() {
+    return vertx.getAcceptorEventLoopGroup();
+  }
+
+  @Override
+  public List<EventLoopMXBean> getEventLoopMetrics() {
+    return vertx.getEventLoopMetrics();
+  }
+
+  @Override
+  public EventLoopMXBeanImpl getEventLoopMetrics(EventLoop eventLoop) {
+    return vertx.getEventLoopMetrics(eventLoop);
+  }
+
   @Override
   public ExecutorService getBackgroundPool() {
     return vertx.getBackgroundPool();
@@ -96,11 +120,31 @@ public class WrappedVertx implements VertxInternal {
     return vertx.startOnEventLoop(runnable);
   }
 
+  @Override
+  public DefaultContext startOnEventLoop(Runnable runnable, EventLoop eventLoop) {
+    return vertx.startOnEventLoop(runnable, eventLoop);
+  }
+
   @Override
   public DefaultContext startInBackground(Runnable runnable, boolean multiThreaded) {
     return vertx.startInBackground(runnable, multiThreaded);
   }
 
+  @Override
+  public DefaultContext startInBackground(Runnable runnable, boolean multiThreaded, EventLoop eventLoop) {
+    return vertx.startInBackground(runnable, multiThreaded, eventLoop);
+  }
+
+  @Override
+  public EventLoop chooseEventLoop() {
+    return vertx.chooseEventLoop();
+  }
+
+  @Override
+  public List<EventLoop> chooseEventLoops(int count) {
+    return vertx.chooseEventLoops(count);
+  }
+
   @Override
   public DefaultContext getOrCreateContext() {
     return vertx.getOrCreateContext();
@@ -25,6 +25,8 @@ import org.vertx.java.core.spi.cluster.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FakeClusterManager implements ClusterManager {
 
@@ -35,6 +37,8 @@ public class FakeClusterManager implements ClusterManager {
   private static ConcurrentMap<String, Map> syncMaps = new ConcurrentHashMap<>();
   private static ConcurrentMap<String, AsyncMap> asyncMaps = new ConcurrentHashMap<>();
   private static ConcurrentMap<String, AsyncMultiMap> asyncMultiMaps = new ConcurrentHashMap<>();
+  // Number of gets for each key of the multimaps, so tests can tell when something has been looked up
+  private static ConcurrentMap<Object, AtomicInteger> multiMapGets = new ConcurrentHashMap<>();
 
   private String nodeID;
   private NodeListener nodeListener;
@@ -160,6 +164,12 @@ public class FakeClusterManager implements ClusterManager {
     syncMaps.clear();
     asyncMaps.clear();
     asyncMultiMaps.clear();
+    multiMapGets.clear();
+  }
+
+  public static int getMultiMapGets(Object key) {
+    AtomicInteger gets = multiMapGets.get(key);
+    return gets == null ? 0 : gets.get();
   }
 
   private class FakeAsyncMap<K, V> implements AsyncMap<K, V> {
@@ -196,9 +206,20 @@ public class FakeClusterManager implements ClusterManager {
     }
   }
 
-  private class FakeAsyncMultiMap<K, V> implements AsyncMultiMap<K, V> {
+  private class FakeAsyncMultiMap<K, V> implements ListenableAsyncMultiMap<K, V> {
 
     private ConcurrentMap<K, ChoosableSet<V>> map = new ConcurrentHashMap<>();
+    private List<MultiMapListener<K, V>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void addListener(MultiMapListener<K, V> listener) {
+      listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(MultiMapListener<K, V> listener) {
+      listeners.remove(listener);
+    }
 
     @Override
     public void add(final K k, final V v, Handler<AsyncResult<Void>> completionHandler) {
@@ -213,6 +234,9 @@ public class FakeClusterManager implements ClusterManager {
             }
           }
           vals.add(v);
+          for (MultiMapListener<K, V> listener: listeners) {
+            listener.entryAdded(k, v);
+          }
           return null;
         }
       }, completionHandler);
@@ -220,6 +244,15 @@ public class FakeClusterManager implements ClusterManager {
 
     @Override
     public void get(final K k, Handler<AsyncResult<ChoosableIterable<V>>> asyncResultHandler) {
+      AtomicInteger gets = multiMapGets.get(k);
+      if (gets == null) {
+        gets = new AtomicInteger();
+        AtomicInteger prevGets = multiMapGets.putIfAbsent(k, gets);
+        if (prevGets != null) {
+          gets = prevGets;
+        }
+      }
+      gets.incrementAndGet();
       vertx.executeBlocking(new Action<ChoosableIterable<V>>() {
         public ChoosableIterable<V> perform() {
           return map.get(k);
@@ -237,6 +270,9 @@ public class FakeClusterManager implements ClusterManager {
             if (vals.isEmpty()) {
               map.remove(k);
             }
+            for (MultiMapListener<K, V> listener: listeners) {
+              listener.entryRemoved(k, v);
+            }
           }
           return null;
         }
@@ -256,6 +292,9 @@ public class FakeClusterManager implements ClusterManager {
               V val = iter.next();
               if (val.equals(v)) {
                 iter.remove();
+                for (MultiMapListener<K, V> listener: listeners) {
+                  listener.entryRemoved(entry.getKey(), v);
+                }
               }
             }
             if (vals.isEmpty()) {
@@ -16,15 +16,38 @@
 
 package org.vertx.java.tests.core.context;
 
+import io.netty.channel.EventLoop;
 import org.junit.Test;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.VertxFactory;
 import org.vertx.java.core.VoidHandler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.impl.BlockedThreadChecker;
+import org.vertx.java.core.impl.DefaultContext;
+import org.vertx.java.core.impl.DeploymentHandle;
+import org.vertx.java.core.impl.OrderedExecutorFactory;
+import org.vertx.java.core.impl.VertxExecutorFactory;
+import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.impl.management.EventLoopMXBean;
+import org.vertx.java.core.net.NetServer;
+import org.vertx.java.core.net.NetSocket;
 import org.vertx.java.testframework.TestBase;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class JavaContextTest extends TestBase {
 
@@ -74,6 +97,225 @@ public class JavaContextTest extends TestBase {
     }
   }
 
+  @Test
+  public void testWorkerContextOrdering() throws Exception {
+    final VertxInternal vertx = (VertxInternal)VertxFactory.newVertx();
+    final DefaultContext context = vertx.startInBackground(new Runnable() {
+      public void run() {
+      }
+    }, false);
+    final int threads = 4;
+    // Well over vertx.pool.worker.maxbatch, so the runner has to give its thread back several times
+    final int perThread = 1000;
+    final CountDownLatch latch = new CountDownLatch(threads * perThread);
+    // Only touched by the tasks, which never run at the same time
+    final int[] next = new int[threads];
+    final AtomicBoolean running = new AtomicBoolean();
+    final AtomicReference<String> error = new AtomicReference<>();
+    for (int t = 0; t < threads; t++) {
+      final int thread = t;
+      new Thread() {
+        public void run() {
+          for (int i = 0; i < perThread; i++) {
+            final int seq = i;
+            context.execute(new Runnable() {
+              public void run() {
+                if (!running.compareAndSet(false, true)) {
+                  error.compareAndSet(null, "Tasks ran at the same time");
+                }
+                if (next[thread] != seq) {
+                  error.compareAndSet(null, "Expected task " + next[thread] + " from thread " + thread + " but got " + seq);
+                }
+                next[thread]++;
+                running.set(false);
+                latch.countDown();
+              }
+            });
+          }
+        }
+      }.start();
+    }
+    assertTrue(latch.await(30, TimeUnit.SECONDS));
+    assertNull(error.get());
+    vertx.stop();
+  }
+
+  @Test
+  public void testOrderedExecutorResubmitRejected() throws Exception {
+    final ExecutorService pool = Executors.newSingleThreadExecutor();
+    final AtomicInteger submissions = new AtomicInteger();
+    Executor parent = new Executor() {
+      public void execute(Runnable command) {
+        // Turns the runner down when it gives its thread back after a full batch
+        if (submissions.incrementAndGet() == 2) {
+          throw new RejectedExecutionException();
+        }
+        pool.execute(command);
+      }
+    };
+    Executor executor = new OrderedExecutorFactory(parent).getExecutor();
+    final CountDownLatch blocked = new CountDownLatch(1);
+    // Hold up the pool so all the tasks are queued before the runner starts
+    pool.execute(new Runnable() {
+      public void run() {
+        try {
+          blocked.await();
+        } catch (InterruptedException ignore) {
+        }
+      }
+    });
+    int tasks = Integer.getInteger("vertx.pool.worker.maxbatch", 64) + 10;
+    final CountDownLatch latch = new CountDownLatch(tasks + 1);
+    Runnable task = new Runnable() {
+      public void run() {
+        latch.countDown();
+      }
+    };
+    for (int i = 0; i < tasks; i++) {
+      executor.execute(task);
+    }
+    blocked.countDown();
+    // Wait for the runner to have been turned down
+    long start = System.currentTimeMillis();
+    while (submissions.get() < 2 && System.currentTimeMillis() - start < 5000) {
+      Thread.sleep(10);
+    }
+    assertEquals(2, submissions.get());
+    // The next task has to get the rest going again
+    executor.execute(task);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    pool.shutdown();
+  }
+
+  @Test
+  public void testEventLoopMetrics() throws Exception {
+    final VertxInternal vertx = (VertxInternal)VertxFactory.newVertx();
+    List<EventLoopMXBean> metrics = vertx.getEventLoopMetrics();
+    assertEquals(VertxExecutorFactory.eventLoopSize(), metrics.size());
+    final CountDownLatch latch = new CountDownLatch(10);
+    final AtomicReference<EventLoopMXBean> ref = new AtomicReference<>();
+    for (int i = 0; i < 10; i++) {
+      vertx.runOnContext(new VoidHandler() {
+        @Override
+        protected void handle() {
+          ref.set(vertx.getEventLoopMetrics(vertx.getContext().getEventLoop()));
+          latch.countDown();
+        }
+      });
+    }
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    EventLoopMXBean eventLoop = ref.get();
+    assertTrue(metrics.contains(eventLoop));
+    // Sampling starts when the statistics are first asked for, then wait for the next sample
+    for (EventLoopMXBean m: metrics) {
+      m.getTasksExecuted();
+    }
+    Thread.sleep(1500);
+    assertTrue(eventLoop.getName().startsWith("vert.x-eventloop-thread-"));
+    // Each call from outside vert.x gets a new context, which may be on any of the event loops. They aren't
+    // deployments so they don't count as contexts
+    long tasks = 0;
+    for (EventLoopMXBean m: metrics) {
+      tasks += m.getTasksExecuted();
+      assertTrue(m.getBusyRatio() >= 0 && m.getBusyRatio() <= 1);
+      assertEquals(0, m.getChannels());
+    }
+    assertEquals(0, countContexts(metrics));
+    assertTrue(tasks >= 10);
+    vertx.stop();
+  }
+
+  @Test
+  public void testEventLoopMetricsContexts() throws Exception {
+    VertxInternal vertx = (VertxInternal)VertxFactory.newVertx();
+    List<EventLoopMXBean> metrics = vertx.getEventLoopMetrics();
+    DefaultContext context = vertx.createEventLoopContext();
+    assertEquals(0, countContexts(metrics));
+    context.setDeploymentHandle(new DeploymentHandle() {
+      public void reportException(Throwable t) {
+      }
+      public String getDeploymentName() {
+        return "test";
+      }
+    });
+    assertEquals(1, vertx.getEventLoopMetrics(context.getEventLoop()).getContexts());
+    assertEquals(1, countContexts(metrics));
+    context.close();
+    assertEquals(0, countContexts(metrics));
+    // Closing again doesn't count twice
+    context.close();
+    assertEquals(0, countContexts(metrics));
+    vertx.stop();
+  }
+
+  private static int countContexts(List<EventLoopMXBean> metrics) {
+    int contexts = 0;
+    for (EventLoopMXBean m: metrics) {
+      contexts += m.getContexts();
+    }
+    return contexts;
+  }
+
+  @Test
+  public void testChooseEventLoops() throws Exception {
+    VertxInternal vertx = (VertxInternal)VertxFactory.newVertx();
+    int size = VertxExecutorFactory.eventLoopSize();
+    List<EventLoop> eventLoops = vertx.chooseEventLoops(size);
+    assertEquals(size, new HashSet<>(eventLoops).size());
+    for (EventLoop eventLoop: eventLoops) {
+      final CountDownLatch latch = new CountDownLatch(1);
+      DefaultContext context = vertx.startOnEventLoop(new Runnable() {
+        public void run() {
+          latch.countDown();
+        }
+      }, eventLoop);
+      assertTrue(context.getEventLoop() == eventLoop);
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+    // Each event loop has a context now, so the next ones should still be spread over them all
+    assertEquals(size, new HashSet<>(vertx.chooseEventLoops(size)).size());
+    vertx.stop();
+  }
+
+  @Test
+  public void testBlockedSocketHandler() throws Exception {
+    final Vertx vertx = VertxFactory.newVertx();
+    final long blocked = BlockedThreadChecker.getBlockedEventLoopTasks();
+    final CountDownLatch latch = new CountDownLatch(1);
+    // Socket data is handled inline on the event loop, not through the context
+    vertx.createNetServer().connectHandler(new Handler<NetSocket>() {
+      public void handle(final NetSocket socket) {
+        socket.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer data) {
+            try {
+              Thread.sleep(3500);
+            } catch (InterruptedException ignore) {
+            }
+            socket.write(data);
+          }
+        });
+      }
+    }).listen(1234, new AsyncResultHandler<NetServer>() {
+      public void handle(AsyncResult<NetServer> res) {
+        assertTrue(res.succeeded());
+        vertx.createNetClient().connect(1234, new AsyncResultHandler<NetSocket>() {
+          public void handle(AsyncResult<NetSocket> res) {
+            assertTrue(res.succeeded());
+            res.result().dataHandler(new Handler<Buffer>() {
+              public void handle(Buffer data) {
+                latch.countDown();
+              }
+            });
+            res.result().write("block");
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertTrue(BlockedThreadChecker.getBlockedEventLoopTasks() > blocked);
+    vertx.stop();
+  }
+
   @Test
   public void testNoContext() throws Exception {
     Vertx vertx = VertxFactory.newVertx();
@@ -83,6 +83,16 @@ public class JavaEchoTest extends TestBase {
     runPeerTest(getMethodName());
   }
 
+  @Test
+  public void testEchoCodec() {
+    runPeerTest(getMethodName());
+  }
+
+  @Test
+  public void testForwardJson() {
+    runPeerTest(getMethodName());
+  }
+
   @Test
   public void testEchoBuffer() {
     runPeerTest(getMethodName());
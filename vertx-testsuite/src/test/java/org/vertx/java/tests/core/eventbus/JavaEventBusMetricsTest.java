@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package org.vertx.java.tests.core.eventbus;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.vertx.java.core.impl.management.EventBusAddressMXBeanImpl;
+import org.vertx.java.core.impl.management.EventBusMXBeanImpl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class JavaEventBusMetricsTest extends TestCase {
+
+  @Test
+  public void testCounters() throws Exception {
+    EventBusMXBeanImpl bus = new EventBusMXBeanImpl("localhost", 1234);
+    EventBusAddressMXBeanImpl address = bus.addressRegistered("foo");
+    assertSame(address, bus.address("foo"));
+    address.messageSent();
+    address.messageSent();
+    address.messagePublished();
+    address.messageReceived(true);
+    address.messageReceived(false);
+    address.messageReceived(false);
+    address.replyTimeout();
+    address.noHandlers();
+    address.messageExpired();
+    assertEquals(2, address.getMessagesSent());
+    assertEquals(1, address.getMessagesPublished());
+    assertEquals(3, address.getMessagesReceived());
+    assertEquals(1, address.getLocalDeliveries());
+    assertEquals(2, address.getRemoteDeliveries());
+    assertEquals(1, address.getReplyTimeouts());
+    assertEquals(1, address.getNoHandlers());
+    assertEquals(1, address.getMessagesExpired());
+    // Addresses without handlers here, e.g. ones only sent to from this node, are tracked too
+    EventBusAddressMXBeanImpl bar = bus.address("bar");
+    assertSame(bar, bus.address("bar"));
+    bar.messageSent();
+    bar.noHandlers();
+    assertEquals(1, bar.getMessagesSent());
+    assertEquals(1, bar.getNoHandlers());
+    assertEquals(3, bus.getMessagesSent());
+    assertEquals(1, bus.getMessagesPublished());
+    assertEquals(3, bus.getMessagesReceived());
+    assertEquals(1, bus.getReplyTimeouts());
+    assertEquals(2, bus.getNoHandlers());
+    assertEquals(1, bus.getMessagesExpired());
+    assertEquals(new HashSet<>(Arrays.asList("foo", "bar")), new HashSet<>(Arrays.asList(bus.getAddresses())));
+  }
+
+  @Test
+  public void testHandlerTimeHistogram() throws Exception {
+    EventBusAddressMXBeanImpl address = new EventBusMXBeanImpl("localhost", 1234).addressRegistered("foo");
+    // Bucket n holds times of less than 2^n micros
+    address.handlerExecuted(500);
+    address.handlerExecuted(TimeUnit.MICROSECONDS.toNanos(1));
+    address.handlerExecuted(TimeUnit.MICROSECONDS.toNanos(3));
+    address.handlerExecuted(TimeUnit.MILLISECONDS.toNanos(3));
+    // Anything over about a second goes in the last bucket
+    address.handlerExecuted(TimeUnit.SECONDS.toNanos(10));
+    long[] histogram = address.getHandlerTimeHistogram();
+    assertEquals(22, histogram.length);
+    long[] expected = new long[22];
+    expected[0] = 1;
+    expected[1] = 1;
+    expected[2] = 1;
+    expected[12] = 1;
+    expected[21] = 1;
+    assertTrue(Arrays.toString(histogram), Arrays.equals(expected, histogram));
+    assertEquals(1 + 3 + 3000 + 10000000, address.getHandlerTimeTotalMicros());
+  }
+
+  @Test
+  public void testAddressUnregistered() throws Exception {
+    EventBusMXBeanImpl bus = new EventBusMXBeanImpl("localhost", 1234);
+    EventBusAddressMXBeanImpl address = bus.addressRegistered("foo");
+    bus.addressUnregistered("foo");
+    assertEquals(0, bus.getAddresses().length);
+    assertNotSame(address, bus.address("foo"));
+    // Registering again starts afresh
+    address.messageSent();
+    assertEquals(0, bus.addressRegistered("foo").getMessagesSent());
+  }
+
+  @Test
+  public void testMaxAddresses() throws Exception {
+    EventBusMXBeanImpl bus = new EventBusMXBeanImpl("localhost", 1234);
+    // The default limit
+    for (int i = 0; i < 1000; i++) {
+      bus.addressRegistered("address-" + i);
+    }
+    assertSame(bus.untracked(), bus.addressRegistered("one-too-many"));
+    // Unregistered addresses make room for others
+    bus.addressUnregistered("address-0");
+    assertNotSame(bus.untracked(), bus.addressRegistered("one-too-many"));
+    assertEquals(1000, bus.getAddresses().length);
+  }
+
+  @Test
+  public void testIdleAddressesEvicted() throws Exception {
+    System.setProperty("vertx.management.eventbus.addressidle", "0");
+    EventBusMXBeanImpl bus;
+    try {
+      bus = new EventBusMXBeanImpl("localhost", 1234);
+    } finally {
+      System.clearProperty("vertx.management.eventbus.addressidle");
+    }
+    bus.addressRegistered("registered");
+    for (int i = 1; i < 1000; i++) {
+      bus.address("address-" + i);
+    }
+    // Nothing has been seen to be idle yet
+    assertSame(bus.untracked(), bus.address("one-too-many"));
+    bus.address("address-1").messageSent();
+    // Addresses with handlers here, or which have been used since, are kept
+    assertNotSame(bus.untracked(), bus.address("one-too-many"));
+    Set<String> addresses = new HashSet<>(Arrays.asList(bus.getAddresses()));
+    assertEquals(new HashSet<>(Arrays.asList("registered", "address-1", "one-too-many")), addresses);
+  }
+
+  @Test
+  public void testInternalAddressesUntracked() throws Exception {
+    EventBusMXBeanImpl bus = new EventBusMXBeanImpl("localhost", 1234);
+    assertSame(bus.untracked(), bus.addressRegistered("__vertx.stream.foo"));
+    assertSame(bus.untracked(), bus.address("__vertx.stream.foo"));
+    assertEquals(0, bus.getAddresses().length);
+  }
+}
@@ -105,6 +105,21 @@ public class JavaEventBusTest extends TestBase {
     runPeerTest(getMethodName());
   }
 
+  @Test
+  public void testCompression() {
+    runPeerTest(getMethodName());
+  }
+
+  @Test
+  public void testSendWithKeyPeers() {
+    runPeerTest(getMethodName());
+  }
+
+  @Test
+  public void testPriority() {
+    runPeerTest(getMethodName());
+  }
+
   @Test
   public void testReplyDifferentType() {
     runPeerTest(getMethodName());
@@ -151,4 +166,115 @@ public class JavaEventBusTest extends TestBase {
   public void testSendNoHandlerWithTimeoutReply() {
     startTest(getMethodName());
   }
+
+  @Test
+  public void testReplyHandlerRemovedOnClose() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testSendWithTimeoutExpired() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testReplyAfterDeadline() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testMaxPendingDropOldest() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testMaxPendingDropNewest() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testMaxPendingReject() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testLocalityAware() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testSendWithKey() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testLeastOutstanding() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testLeastOutstandingSkipsBusyHandler() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testLeastOutstandingRotation() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testWildcardPublish() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testWildcardSend() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testStream() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testStreamPriority() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testStreamIdleTimeout() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testStreamLostChunks() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testStreamNoHandler() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testCoalescedWrites() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testPendingRejected() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testPendingSpilled() {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testSubsCacheEmpty() {
+    startTest(getMethodName());
+  }
+
 }
@@ -76,6 +76,20 @@ public class JavaNetTest extends TestBase {
     startTest(getMethodName());
   }
 
+  @Test
+  public void testEchoWithAcceptors() throws Exception {
+    System.setProperty("vertx.pool.acceptor.size", "2");
+    // One at a time, so the acceptor has to come back round for each connection
+    System.setProperty("vertx.net.acceptor.acceptsperread", "1");
+    try {
+      startApp(EchoServer.class.getName());
+      startTest(getMethodName());
+    } finally {
+      System.clearProperty("vertx.pool.acceptor.size");
+      System.clearProperty("vertx.net.acceptor.acceptsperread");
+    }
+  }
+
   @Test
   public void testEchoStringDefaultEncoding() throws Exception {
     startApp(EchoServer.class.getName());
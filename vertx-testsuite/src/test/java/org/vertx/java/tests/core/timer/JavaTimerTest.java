@@ -59,4 +59,9 @@ public class JavaTimerTest extends TestBase {
     startTest(getMethodName());
   }
 
+  @Test
+  public void testCancelMany() throws Exception {
+    startTest(getMethodName());
+  }
+
 }
@@ -17,16 +17,39 @@
 package vertx.tests.core.eventbus;
 
 import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Future;
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.VertxException;
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.eventbus.EventBusReadStream;
+import org.vertx.java.core.eventbus.EventBusWriteStream;
 import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.eventbus.MessagePriority;
+import org.vertx.java.core.eventbus.OverflowPolicy;
 import org.vertx.java.core.eventbus.ReplyException;
 import org.vertx.java.core.eventbus.ReplyFailure;
+import org.vertx.java.core.eventbus.impl.DefaultEventBus;
+import org.vertx.java.core.impl.DefaultContext;
+import org.vertx.java.core.impl.DeploymentHandle;
+import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.spi.cluster.ClusterManager;
+import org.vertx.java.fakecluster.FakeClusterManager;
 import org.vertx.java.testframework.TestUtils;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -94,6 +117,64 @@ public class LocalClient extends EventBusAppBase {
     }
   }
 
+  public void testCompression() {
+    eb.setCompressionThreshold(1024);
+    JsonArray items = new JsonArray();
+    for (int i = 0; i < 1000; i++) {
+      items.addObject(new JsonObject().putNumber("id", i).putString("status", "pending"));
+    }
+    JsonObject json = new JsonObject().putArray("items", items);
+    final String encoded = json.encode();
+    data.put("json", encoded);
+    Set<String> addresses = vertx.sharedData().getSet("addresses");
+    for (String address: addresses) {
+      eb.send(address, json, new Handler<Message<JsonObject>>() {
+        public void handle(Message<JsonObject> reply) {
+          tu.azzert(reply.body().encode().equals(encoded));
+          tu.testComplete();
+        }
+      });
+    }
+  }
+
+  public void testPriority() {
+    Buffer buff = TestUtils.generateRandomBuffer(1000);
+    data.put("buffer", buff);
+    Set<String> addresses = vertx.sharedData().getSet("addresses");
+    MessagePriority[] priorities = MessagePriority.values();
+    int i = 0;
+    for (final String address: addresses) {
+      eb.setPriority(address, priorities[i++ % priorities.length]);
+      eb.send(address, buff, new Handler<Message<Buffer>>() {
+        public void handle(Message<Buffer> reply) {
+          tu.azzert(("reply" + address).equals(reply.body().toString()));
+          eb.setPriority(address, null);
+          tu.testComplete();
+        }
+      });
+    }
+  }
+
+  public void testSendWithKeyPeers() {
+    final String address = "some-keyed-address";
+    final int numKeys = 50;
+    final Map<String, String> chosen = new HashMap<>();
+    final AtomicInteger replies = new AtomicInteger();
+    // Each key twice, the same peer should get both
+    for (int i = 0; i < 2 * numKeys; i++) {
+      final String key = "key" + (i % numKeys);
+      eb.sendWithKey(address, key, key, new Handler<Message<String>>() {
+        public void handle(Message<String> reply) {
+          String prev = chosen.put(key, reply.body());
+          tu.azzert(prev == null || prev.equals(reply.body()), "Key " + key + " went to a different peer");
+          if (replies.incrementAndGet() == 2 * numKeys) {
+            eb.publish(address, "done");
+          }
+        }
+      });
+    }
+  }
+
   public void testReplyDifferentType() {
     Buffer buff = TestUtils.generateRandomBuffer(1000);
     data.put("buffer", buff);
@@ -211,4 +292,824 @@ public class LocalClient extends EventBusAppBase {
     });
   }
 
+  public void testReplyHandlerRemovedOnClose() {
+    final String address = UUID.randomUUID().toString();
+    final AtomicReference<Message<String>> received = new AtomicReference<>();
+    final DefaultContext context = ((VertxInternal)vertx).createEventLoopContext();
+    context.setDeploymentHandle(new DeploymentHandle() {
+      public void reportException(Throwable t) {
+      }
+      public String getDeploymentName() {
+        return "closed";
+      }
+    });
+    eb.registerHandler(address, new Handler<Message<String>>() {
+      public void handle(Message<String> msg) {
+        received.set(msg);
+        // Stands in for undeploying the sender while it's waiting for the reply
+        context.runCloseHooks(new Handler<AsyncResult<Void>>() {
+          public void handle(AsyncResult<Void> res) {
+            context.close();
+            received.get().reply("too late");
+            // Neither the reply nor the timeout should get to the handler
+            vertx.setTimer(1000, new Handler<Long>() {
+              public void handle(Long id) {
+                tu.testComplete();
+              }
+            });
+          }
+        });
+      }
+    }, new Handler<AsyncResult<Void>>() {
+      public void handle(AsyncResult<Void> res) {
+        context.execute(new Runnable() {
+          public void run() {
+            eb.sendWithTimeout(address, "foo", 500, new Handler<AsyncResult<Message<String>>>() {
+              public void handle(AsyncResult<Message<String>> reply) {
+                tu.azzert(false, "Reply handler called after its context was closed");
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testSendWithTimeoutExpired() {
+    final String address = UUID.randomUUID().toString();
+    final AtomicInteger count = new AtomicInteger();
+    eb.registerHandler(address, new Handler<Message<String>>() {
+      public void handle(Message<String> msg) {
+        tu.azzert(msg.body().equals("block"), "Expired message was handled");
+        try {
+          // Holds up the next message until its sender has given up
+          Thread.sleep(300);
+        } catch (InterruptedException ignore) {
+        }
+        msg.reply("ok");
+      }
+    });
+    eb.sendWithTimeout(address, "block", 1000, new Handler<AsyncResult<Message<String>>>() {
+      public void handle(AsyncResult<Message<String>> reply) {
+        tu.azzert(reply.succeeded());
+        if (count.incrementAndGet() == 2) {
+          tu.testComplete();
+        }
+      }
+    });
+    eb.sendWithTimeout(address, "late", 100, new Handler<AsyncResult<Message<String>>>() {
+      public void handle(AsyncResult<Message<String>> reply) {
+        tu.azzert(reply.failed());
+        tu.azzert(((ReplyException)reply.cause()).failureType() == ReplyFailure.TIMEOUT);
+        if (count.incrementAndGet() == 2) {
+          tu.testComplete();
+        }
+      }
+    });
+  }
+
+  public void testReplyAfterDeadline() {
+    final String address = UUID.randomUUID().toString();
+    final AtomicInteger count = new AtomicInteger();
+    eb.registerHandler(address, new Handler<Message<String>>() {
+      public void handle(Message<String> msg) {
+        try {
+          // Let the sender give up before we reply
+          Thread.sleep(300);
+        } catch (InterruptedException ignore) {
+        }
+        msg.replyWithTimeout("late", 5000, new Handler<AsyncResult<Message<String>>>() {
+          public void handle(AsyncResult<Message<String>> reply) {
+            tu.checkThread();
+            tu.azzert(reply.failed());
+            tu.azzert(((ReplyException)reply.cause()).failureType() == ReplyFailure.TIMEOUT);
+            if (count.incrementAndGet() == 2) {
+              tu.testComplete();
+            }
+          }
+        });
+      }
+    });
+    eb.sendWithTimeout(address, "foo", 100, new Handler<AsyncResult<Message<String>>>() {
+      public void handle(AsyncResult<Message<String>> reply) {
+        tu.azzert(reply.failed());
+        if (count.incrementAndGet() == 2) {
+          tu.testComplete();
+        }
+      }
+    });
+  }
+
+  public void testMaxPendingDropOldest() {
+    testMaxPending(OverflowPolicy.DROP_OLDEST, 8);
+  }
+
+  public void testMaxPendingDropNewest() {
+    testMaxPending(OverflowPolicy.DROP_NEWEST, 0);
+  }
+
+  private void testMaxPending(OverflowPolicy policy, final int first) {
+    if (!isLocal()) {
+      // Clustered sends wait for the subs lookup, so the handler can run between them and the queue never fills
+      tu.testComplete();
+      return;
+    }
+    final String address = UUID.randomUUID().toString();
+    final AtomicInteger expected = new AtomicInteger(first);
+    eb.registerHandler(address, new Handler<Message<Integer>>() {
+      public void handle(Message<Integer> msg) {
+        tu.checkThread();
+        tu.azzert(msg.body() == expected.getAndIncrement());
+        if (expected.get() == first + 2) {
+          tu.azzert(eb.getPendingMessages(address) == 0);
+          eb.unregisterHandler(address, this);
+          tu.testComplete();
+        }
+      }
+    }, 2, policy);
+    // Nothing is handled until we return, so only two messages fit
+    for (int i = 0; i < 10; i++) {
+      eb.send(address, i);
+    }
+    tu.azzert(eb.getPendingMessages(address) == 2);
+  }
+
+  public void testMaxPendingReject() {
+    final String address = UUID.randomUUID().toString();
+    final AtomicInteger replies = new AtomicInteger();
+    final AtomicInteger rejected = new AtomicInteger();
+    eb.registerHandler(address, new Handler<Message<String>>() {
+      public void handle(Message<String> msg) {
+        msg.reply("bar");
+      }
+    }, 1, OverflowPolicy.REJECT);
+    for (int i = 0; i < 3; i++) {
+      eb.sendWithTimeout(address, "foo", 5000, new Handler<AsyncResult<Message<String>>>() {
+        public void handle(AsyncResult<Message<String>> reply) {
+          if (reply.succeeded()) {
+            tu.azzert("bar".equals(reply.result().body()));
+            replies.incrementAndGet();
+          } else {
+            tu.azzert(((ReplyException)reply.cause()).failureType() == ReplyFailure.OVERLOADED);
+            rejected.incrementAndGet();
+          }
+          if (replies.get() + rejected.get() == 3) {
+            // Clustered sends can reach the handler after it's handled the earlier ones
+            tu.azzert(isLocal() ? replies.get() == 1 : replies.get() >= 1);
+            tu.testComplete();
+          }
+        }
+      });
+    }
+  }
+
+  public void testLocalityAware() throws Exception {
+    final String address = UUID.randomUUID().toString();
+    final Thread thread = Thread.currentThread();
+    final AtomicInteger count = new AtomicInteger();
+    final Handler<Message<String>> handler = new Handler<Message<String>>() {
+      public void handle(Message<String> msg) {
+        tu.azzert(Thread.currentThread() == thread);
+        if (count.incrementAndGet() == 10) {
+          tu.testComplete();
+        }
+      }
+    };
+    // Registered without a context, so it gets an event loop of its own
+    Thread other = new Thread() {
+      public void run() {
+        eb.registerLocalHandler(address, handler);
+      }
+    };
+    other.start();
+    other.join();
+    eb.registerLocalHandler(address, handler);
+    eb.setLocalityAware(address, true);
+    for (int i = 0; i < 10; i++) {
+      eb.send(address, "foo");
+    }
+  }
+
+  public void testSendWithKey() {
+    final String address = UUID.randomUUID().toString();
+    final int numHandlers = 4;
+    final int numKeys = 50;
+    final Map<String, Integer> chosen = new HashMap<>();
+    final List<Handler<Message<String>>> handlers = new ArrayList<>();
+    final AtomicInteger count = new AtomicInteger();
+    for (int i = 0; i < numHandlers; i++) {
+      final int id = i;
+      Handler<Message<String>> handler = new Handler<Message<String>>() {
+        public void handle(Message<String> msg) {
+          tu.checkThread();
+          if (msg.replyAddress() != null) {
+            msg.reply(id);
+            return;
+          }
+          Integer prev = chosen.put(msg.body(), id);
+          tu.azzert(prev == null || prev == id, "Key " + msg.body() + " went to a different handler");
+          if (count.incrementAndGet() == 2 * numKeys) {
+            removeHandler(address, handlers.get(0), chosen, numKeys);
+          }
+        }
+      };
+      handlers.add(handler);
+      eb.registerHandler(address, handler);
+    }
+    // Each key twice, they should both go to the same handler
+    for (int i = 0; i < 2 * numKeys; i++) {
+      String key = "key" + (i % numKeys);
+      eb.sendWithKey(address, key, key);
+    }
+  }
+
+  // Only the keys which went to the removed handler should move
+  private void removeHandler(String address, Handler<Message<String>> handler, final Map<String, Integer> chosen,
+                             final int numKeys) {
+    eb.unregisterHandler(address, handler);
+    final AtomicInteger replies = new AtomicInteger();
+    for (int i = 0; i < numKeys; i++) {
+      final String key = "key" + i;
+      eb.sendWithKey(address, key, key, new Handler<Message<Integer>>() {
+        public void handle(Message<Integer> reply) {
+          int prev = chosen.get(key);
+          if (prev == 0) {
+            tu.azzert(reply.body() != 0, "Key " + key + " went to the removed handler");
+          } else {
+            tu.azzert(reply.body() == prev, "Key " + key + " moved");
+          }
+          if (replies.incrementAndGet() == numKeys) {
+            tu.testComplete();
+          }
+        }
+      });
+    }
+  }
+
+  public void testLeastOutstanding() {
+    final String address = UUID.randomUUID().toString();
+    final int numMessages = 20;
+    final AtomicInteger slowCount = new AtomicInteger();
+    final AtomicInteger total = new AtomicInteger();
+    final Handler<Message<String>> fast = new Handler<Message<String>>() {
+      public void handle(Message<String> msg) {
+        if (total.incrementAndGet() == numMessages) {
+          // Round robin would have given the slow handler half of them
+          tu.azzert(slowCount.get() <= 2, "Slow handler got " + slowCount.get() + " messages");
+          tu.testComplete();
+        }
+      }
+    };
+    final Handler<Message<String>> slow = new Handler<Message<String>>() {
+      public void handle(Message<String> msg) {
+        slowCount.incrementAndGet();
+        try {
+          Thread.sleep(500);
+        } catch (InterruptedException ignore) {
+        }
+        fast.handle(msg);
+      }
+    };
+    // The slow one runs on a worker, so it doesn't hold up the fast one
+    ((VertxInternal)vertx).startInBackground(new Runnable() {
+      public void run() {
+        eb.registerLocalHandler(address, slow);
+      }
+    }, false);
+    eb.registerLocalHandler(address, fast);
+    eb.setLeastOutstanding(address, true);
+    vertx.setPeriodic(10, new Handler<Long>() {
+      int sent;
+      public void handle(Long id) {
+        eb.send(address, "foo");
+        if (++sent == numMessages) {
+          vertx.cancelTimer(id);
+        }
+      }
+    });
+  }
+
+  public void testLeastOutstandingSkipsBusyHandler() {
+    final String address = UUID.randomUUID().toString();
+    final int numMessages = 10;
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicBoolean first = new AtomicBoolean(true);
+    final AtomicInteger registered = new AtomicInteger();
+    class WorkerHandler implements Handler<Message<Integer>> {
+      int received;
+      public void handle(Message<Integer> msg) {
+        received++;
+        if (first.compareAndSet(true, false)) {
+          // This handler stays busy with its first message until the test is done, so every later send should
+          // go to the other one
+          eb.send(address, 1);
+          try {
+            release.await();
+          } catch (InterruptedException ignore) {
+          }
+          return;
+        }
+        tu.azzert(received == msg.body(), "Message " + msg.body() + " went to the busy handler");
+        if (msg.body() == numMessages) {
+          release.countDown();
+          tu.testComplete();
+          return;
+        }
+        final int next = msg.body() + 1;
+        // Runs once this message is no longer outstanding, so the idle handler is the only one with none
+        vertx.runOnContext(new Handler<Void>() {
+          public void handle(Void v) {
+            eb.send(address, next);
+          }
+        });
+      }
+    }
+    eb.setLeastOutstanding(address, true);
+    for (int i = 0; i < 2; i++) {
+      ((VertxInternal)vertx).startInBackground(new Runnable() {
+        public void run() {
+          eb.registerLocalHandler(address, new WorkerHandler());
+          if (registered.incrementAndGet() == 2) {
+            eb.send(address, 0);
+          }
+        }
+      }, false);
+    }
+  }
+
+  public void testLeastOutstandingRotation() {
+    final String address = UUID.randomUUID().toString();
+    final int numMessages = 20;
+    final int[] leastOutstanding = new int[2];
+    // Even messages go least outstanding and odd ones locality aware. Each policy keeps its own rotation, so ties
+    // under least outstanding still take the handlers in turn
+    final Handler<Integer> sender = new Handler<Integer>() {
+      public void handle(Integer n) {
+        eb.setLeastOutstanding(address, n % 2 == 0);
+        eb.setLocalityAware(address, n % 2 != 0);
+        eb.send(address, n);
+      }
+    };
+    for (int i = 0; i < 2; i++) {
+      final int id = i;
+      eb.registerLocalHandler(address, new Handler<Message<Integer>>() {
+        public void handle(Message<Integer> msg) {
+          if (msg.body() % 2 == 0) {
+            leastOutstanding[id]++;
+          }
+          final int next = msg.body() + 1;
+          if (next == numMessages) {
+            tu.azzert(leastOutstanding[0] == numMessages / 4 && leastOutstanding[1] == numMessages / 4,
+                "Least outstanding split " + leastOutstanding[0] + "/" + leastOutstanding[1]);
+            tu.testComplete();
+            return;
+          }
+          // Sent once this message is done, so both handlers are idle and every choice is a tie
+          vertx.runOnContext(new Handler<Void>() {
+            public void handle(Void v) {
+              sender.handle(next);
+            }
+          });
+        }
+      });
+    }
+    sender.handle(0);
+  }
+
+  public void testWildcardPublish() {
+    final String prefix = UUID.randomUUID().toString();
+    final AtomicInteger count = new AtomicInteger();
+    class CountingHandler implements Handler<Message<String>> {
+      final int expected;
+      int received;
+      CountingHandler(int expected) {
+        this.expected = expected;
+      }
+      public void handle(Message<String> msg) {
+        tu.azzert(++received <= expected);
+        if (count.incrementAndGet() == 6) {
+          tu.testComplete();
+        }
+      }
+    }
+    eb.registerHandler(prefix + ".eu.gbp", new CountingHandler(1));
+    eb.registerHandler(prefix + ".*.gbp", new CountingHandler(2));
+    eb.registerHandler(prefix + ".#", new CountingHandler(3));
+    eb.registerHandler(prefix + ".*", new CountingHandler(0));
+    eb.publish(prefix + ".eu.gbp", "foo");
+    eb.publish(prefix + ".us.gbp", "foo");
+    eb.publish(prefix, "foo");
+  }
+
+  public void testWildcardSend() {
+    final String prefix = UUID.randomUUID().toString();
+    final Handler<Message<String>> exact = new Handler<Message<String>>() {
+      public void handle(Message<String> msg) {
+        tu.azzert(msg.body().equals("exact"));
+        eb.unregisterHandler(prefix + ".eu", this);
+        eb.send(prefix + ".eu", "pattern");
+      }
+    };
+    final Handler<Message<String>> any = new Handler<Message<String>>() {
+      public void handle(Message<String> msg) {
+        tu.azzert(false, "Should go to the more specific pattern");
+      }
+    };
+    eb.registerHandler(prefix + ".eu", exact);
+    eb.registerHandler(prefix + ".#", any);
+    eb.registerHandler(prefix + ".*", new Handler<Message<String>>() {
+      public void handle(Message<String> msg) {
+        tu.azzert(msg.body().equals("pattern"));
+        eb.unregisterHandler(prefix + ".*", this);
+        eb.unregisterHandler(prefix + ".#", any);
+        eb.sendWithTimeout(prefix + ".eu", "none", 1000, new Handler<AsyncResult<Message<String>>>() {
+          public void handle(AsyncResult<Message<String>> reply) {
+            tu.azzert(((ReplyException)reply.cause()).failureType() == ReplyFailure.NO_HANDLERS);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+    eb.send(prefix + ".eu", "exact");
+  }
+
+  public void testStream() {
+    final String address = UUID.randomUUID().toString();
+    final int count = 10;
+    final Buffer data = new Buffer();
+    for (int i = 0; i < 100000; i++) {
+      data.appendByte((byte)(i % 251));
+    }
+    eb.registerStreamHandler(address, new Handler<EventBusReadStream>() {
+      public void handle(final EventBusReadStream stream) {
+        final Handler<EventBusReadStream> streamHandler = this;
+        tu.azzert(stream.address().equals(address));
+        final Buffer received = new Buffer();
+        // Start paused so the sender has to wait for the drain
+        stream.pause();
+        vertx.setTimer(100, new Handler<Long>() {
+          public void handle(Long id) {
+            stream.resume();
+          }
+        });
+        stream.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer buff) {
+            received.appendBuffer(buff);
+          }
+        });
+        stream.endHandler(new Handler<Void>() {
+          public void handle(Void v) {
+            tu.azzert(received.length() == count * data.length());
+            for (int i = 0; i < count; i++) {
+              tu.azzert(TestUtils.buffersEqual(data, received.getBuffer(i * data.length(), (i + 1) * data.length())));
+            }
+            eb.unregisterStreamHandler(address, streamHandler);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+    eb.openStream(address, new Handler<AsyncResult<EventBusWriteStream>>() {
+      public void handle(AsyncResult<EventBusWriteStream> res) {
+        tu.azzert(res.succeeded());
+        final EventBusWriteStream stream = res.result();
+        stream.setWriteQueueMaxSize(128 * 1024);
+        new Handler<Void>() {
+          int sent;
+          public void handle(Void v) {
+            while (sent < count && !stream.writeQueueFull()) {
+              stream.write(data);
+              sent++;
+            }
+            if (sent < count) {
+              stream.drainHandler(this);
+            } else {
+              stream.end();
+            }
+          }
+        }.handle(null);
+      }
+    });
+  }
+
+  public void testStreamPriority() {
+    final String address = UUID.randomUUID().toString();
+    final Buffer data = TestUtils.generateRandomBuffer(1000);
+    eb.registerStreamHandler(address, new Handler<EventBusReadStream>() {
+      public void handle(EventBusReadStream stream) {
+        final Handler<EventBusReadStream> streamHandler = this;
+        final Buffer received = new Buffer();
+        stream.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer buff) {
+            received.appendBuffer(buff);
+          }
+        });
+        stream.endHandler(new Handler<Void>() {
+          public void handle(Void v) {
+            tu.azzert(TestUtils.buffersEqual(data, received));
+            eb.unregisterStreamHandler(address, streamHandler);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+    eb.openStream(address, new Handler<AsyncResult<EventBusWriteStream>>() {
+      public void handle(AsyncResult<EventBusWriteStream> res) {
+        tu.azzert(res.succeeded());
+        EventBusWriteStream stream = res.result();
+        stream.setPriority(MessagePriority.NORMAL);
+        stream.write(data);
+        try {
+          // The chunks already written might be on another lane
+          stream.setPriority(MessagePriority.HIGH);
+          tu.azzert(false, "Should throw exception");
+        } catch (IllegalStateException e) {
+          // OK
+        }
+        stream.end();
+      }
+    });
+  }
+
+  public void testStreamIdleTimeout() {
+    final String address = UUID.randomUUID().toString();
+    final AtomicReference<EventBusWriteStream> writeStream = new AtomicReference<>();
+    // Read by the receiving stream when it's opened
+    System.setProperty("vertx.eventbus.stream.idletimeout", "500");
+    eb.registerStreamHandler(address, new Handler<EventBusReadStream>() {
+      public void handle(EventBusReadStream stream) {
+        System.clearProperty("vertx.eventbus.stream.idletimeout");
+        final Handler<EventBusReadStream> streamHandler = this;
+        stream.exceptionHandler(new Handler<Throwable>() {
+          public void handle(Throwable t) {
+            tu.azzert(((ReplyException)t).failureType() == ReplyFailure.TIMEOUT);
+            eb.unregisterStreamHandler(address, streamHandler);
+            // The receiver has gone, so the chunk fails, but it still frees up the write queue
+            final EventBusWriteStream ws = writeStream.get();
+            ws.write(new Buffer(new byte[20]));
+            tu.azzert(ws.writeQueueFull());
+            ws.exceptionHandler(new Handler<Throwable>() {
+              public void handle(Throwable t) {
+                tu.azzert(((ReplyException)t).failureType() == ReplyFailure.NO_HANDLERS);
+              }
+            });
+            ws.drainHandler(new Handler<Void>() {
+              public void handle(Void v) {
+                tu.azzert(!ws.writeQueueFull());
+                tu.testComplete();
+              }
+            });
+          }
+        });
+      }
+    });
+    eb.openStream(address, new Handler<AsyncResult<EventBusWriteStream>>() {
+      public void handle(AsyncResult<EventBusWriteStream> res) {
+        tu.azzert(res.succeeded());
+        // Writes a little and then goes quiet without ending the stream, as if the sender had died
+        EventBusWriteStream stream = res.result();
+        stream.setWriteQueueMaxSize(10);
+        stream.write(new Buffer(new byte[5]));
+        writeStream.set(stream);
+      }
+    });
+  }
+
+  public void testStreamLostChunks() {
+    final String address = UUID.randomUUID().toString();
+    eb.registerStreamHandler(address, new Handler<EventBusReadStream>() {
+      public void handle(EventBusReadStream stream) {
+        final Handler<EventBusReadStream> streamHandler = this;
+        stream.endHandler(new Handler<Void>() {
+          public void handle(Void v) {
+            tu.azzert(false, "Stream ended although a chunk was lost");
+          }
+        });
+        stream.exceptionHandler(new Handler<Throwable>() {
+          public void handle(Throwable t) {
+            tu.azzert(t instanceof VertxException);
+            eb.unregisterStreamHandler(address, streamHandler);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+    eb.openStream(address, new Handler<AsyncResult<EventBusWriteStream>>() {
+      public void handle(AsyncResult<EventBusWriteStream> res) {
+        tu.azzert(res.succeeded());
+        EventBusWriteStream stream = res.result();
+        stream.write(new Buffer("foo"));
+        // Stands in for a chunk which never arrived - the end says one more was sent than was written
+        try {
+          Field field = stream.getClass().getDeclaredField("dataAddress");
+          field.setAccessible(true);
+          eb.send((String)field.get(stream), 2L);
+        } catch (Exception e) {
+          tu.azzert(false, e.toString());
+        }
+      }
+    });
+  }
+
+  public void testStreamNoHandler() {
+    eb.openStream(UUID.randomUUID().toString(), new Handler<AsyncResult<EventBusWriteStream>>() {
+      public void handle(AsyncResult<EventBusWriteStream> res) {
+        tu.azzert(res.failed());
+        tu.azzert(((ReplyException)res.cause()).failureType() == ReplyFailure.NO_HANDLERS);
+        tu.testComplete();
+      }
+    });
+  }
+
+  public void testCoalescedWrites() {
+    if (isLocal()) {
+      // The buses started here are always clustered, so it's only run with the clustered tests
+      tu.testComplete();
+      return;
+    }
+    final String address = UUID.randomUUID().toString();
+    final int count = 1000;
+    final List<DefaultEventBus> buses = new ArrayList<>();
+    final AtomicInteger received = new AtomicInteger();
+    startBuses(3, Collections.singletonMap("vertx.cluster.coalesce.writes", "true"), buses, new Handler<Void>() {
+      public void handle(Void v) {
+        final AtomicInteger registered = new AtomicInteger();
+        // The last two receive everything the first publishes, over connections of their own
+        for (final DefaultEventBus bus : buses.subList(1, 3)) {
+          bus.registerHandler(address, new Handler<Message<String>>() {
+            int expected;
+            public void handle(Message<String> msg) {
+              tu.checkThread();
+              tu.azzert(msg.body().equals("message-" + expected++));
+              if (expected == count) {
+                bus.unregisterHandler(address, this);
+                if (received.incrementAndGet() == 2) {
+                  closeBuses(buses);
+                }
+              }
+            }
+          }, new Handler<AsyncResult<Void>>() {
+            public void handle(AsyncResult<Void> res) {
+              tu.azzert(res.succeeded());
+              if (registered.incrementAndGet() == 2) {
+                for (int i = 0; i < count; i++) {
+                  buses.get(0).publish(address, "message-" + i);
+                }
+              }
+            }
+          });
+        }
+      }
+    });
+  }
+
+  public void testPendingRejected() {
+    if (isLocal()) {
+      tu.testComplete();
+      return;
+    }
+    final String address = UUID.randomUUID().toString();
+    final List<DefaultEventBus> buses = new ArrayList<>();
+    // Nothing can wait for the connection to be made
+    startBuses(2, Collections.singletonMap("vertx.cluster.pending.maxbytes", "0"), buses, new Handler<Void>() {
+      public void handle(Void v) {
+        buses.get(1).registerHandler(address, new Handler<Message<String>>() {
+          public void handle(Message<String> msg) {
+            tu.azzert(false, "Should have been rejected");
+          }
+        }, new Handler<AsyncResult<Void>>() {
+          public void handle(AsyncResult<Void> res) {
+            tu.azzert(res.succeeded());
+            buses.get(0).sendWithTimeout(address, "foo", 5000, new Handler<AsyncResult<Message<String>>>() {
+              public void handle(AsyncResult<Message<String>> reply) {
+                tu.checkThread();
+                tu.azzert(reply.failed());
+                tu.azzert(((ReplyException)reply.cause()).failureType() == ReplyFailure.OVERLOADED);
+                closeBuses(buses);
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testPendingSpilled() {
+    if (isLocal()) {
+      tu.testComplete();
+      return;
+    }
+    final String address = UUID.randomUUID().toString();
+    final int count = 100;
+    final List<DefaultEventBus> buses = new ArrayList<>();
+    // Everything sent before the connection is made goes through the spill file
+    Map<String, String> properties = new HashMap<>();
+    properties.put("vertx.cluster.pending.maxbytes", "0");
+    properties.put("vertx.cluster.pending.spill", "true");
+    startBuses(2, properties, buses, new Handler<Void>() {
+      public void handle(Void v) {
+        buses.get(1).registerHandler(address, new Handler<Message<String>>() {
+          final Set<String> received = new HashSet<>();
+          public void handle(Message<String> msg) {
+            tu.checkThread();
+            tu.azzert(received.add(msg.body()), "Received twice " + msg.body());
+            if (received.size() == count) {
+              for (int i = 0; i < count; i++) {
+                tu.azzert(received.contains("message-" + i));
+              }
+              buses.get(1).unregisterHandler(address, this);
+              closeBuses(buses);
+            }
+          }
+        }, new Handler<AsyncResult<Void>>() {
+          public void handle(AsyncResult<Void> res) {
+            tu.azzert(res.succeeded());
+            for (int i = 0; i < count; i++) {
+              buses.get(0).send(address, "message-" + i);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public void testSubsCacheEmpty() {
+    if (isLocal()) {
+      tu.testComplete();
+      return;
+    }
+    final String address = UUID.randomUUID().toString();
+    eb.sendWithTimeout(address, "foo", 5000, new Handler<AsyncResult<Message<String>>>() {
+      public void handle(AsyncResult<Message<String>> reply) {
+        tu.azzert(((ReplyException)reply.cause()).failureType() == ReplyFailure.NO_HANDLERS);
+        eb.sendWithTimeout(address, "foo", 5000, new Handler<AsyncResult<Message<String>>>() {
+          public void handle(AsyncResult<Message<String>> reply) {
+            tu.checkThread();
+            tu.azzert(((ReplyException)reply.cause()).failureType() == ReplyFailure.NO_HANDLERS);
+            // Nothing was subscribed, which was cached by the first send
+            tu.azzert(FakeClusterManager.getMultiMapGets(address) == 1);
+            eb.registerHandler(address, new Handler<Message<String>>() {
+              int received;
+              public void handle(Message<String> msg) {
+                if (++received == 1) {
+                  eb.send(address, "bar");
+                } else {
+                  // Registering dropped the empty entry. Only the first send looked up the subscription, the second
+                  // used the cached one
+                  tu.azzert(FakeClusterManager.getMultiMapGets(address) == 2);
+                  eb.unregisterHandler(address, this);
+                  tu.testComplete();
+                }
+              }
+            }, new Handler<AsyncResult<Void>>() {
+              public void handle(AsyncResult<Void> res) {
+                tu.azzert(res.succeeded());
+                eb.send(address, "bar");
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  // Starts extra clustered event buses with system properties set while they're created, so options which are read
+  // when a bus starts can be tested
+  private void startBuses(final int count, final Map<String, String> properties, final List<DefaultEventBus> buses,
+                          final Handler<Void> doneHandler) {
+    VertxInternal vertxi = (VertxInternal)vertx;
+    for (Map.Entry<String, String> property: properties.entrySet()) {
+      System.setProperty(property.getKey(), property.getValue());
+    }
+    try {
+      ClusterManager clusterManager = new FakeClusterManager(vertxi);
+      buses.add(new DefaultEventBus(vertxi, 0, "localhost", clusterManager, new AsyncResultHandler<Void>() {
+        public void handle(AsyncResult<Void> res) {
+          tu.azzert(res.succeeded());
+          if (buses.size() == count) {
+            doneHandler.handle(null);
+          } else {
+            startBuses(count, properties, buses, doneHandler);
+          }
+        }
+      }));
+    } finally {
+      for (String property: properties.keySet()) {
+        System.clearProperty(property);
+      }
+    }
+  }
+
+  private void closeBuses(final List<DefaultEventBus> buses) {
+    if (buses.isEmpty()) {
+      tu.testComplete();
+    } else {
+      buses.remove(0).close(new Handler<AsyncResult<Void>>() {
+        public void handle(AsyncResult<Void> res) {
+          closeBuses(buses);
+        }
+      });
+    }
+  }
+
 }
@@ -239,6 +239,38 @@ public class LocalEchoClient extends EventBusAppBase {
     eb.send(echoAddress(), chr, handler);
   }
 
+  public void testEchoCodec() {
+    eb.registerCodec(Point.class, new Point.Codec());
+    Random random = new Random();
+    Point msg = new Point(random.nextInt(), random.nextInt());
+    final Handler<Message<Point>> handler = echoHandler(msg);
+    eb.send(echoAddress(), (Object)msg, new Handler<Message>() {
+      public void handle(Message reply) {
+        eb.unregisterCodec(Point.class);
+        handler.handle(reply);
+      }
+    });
+  }
+
+  public void testForwardJson() {
+    final JsonObject obj = new JsonObject().putString("foo", "bar").putNumber("num", 12124);
+    final String address = "forwarded-" + echoAddress();
+    eb.registerHandler(address, new Handler<Message<JsonObject>>() {
+      public void handle(Message<JsonObject> msg) {
+        tu.checkThread();
+        tu.azzert(obj.equals(msg.body()), "Expecting " + obj + " got " + msg.body());
+        tu.azzert(obj != msg.body());
+        eb.unregisterHandler(address, this);
+        tu.testComplete();
+      }
+    }, new Handler<AsyncResult<Void>>() {
+      public void handle(AsyncResult<Void> res) {
+        tu.azzert(res.succeeded());
+        eb.send(echoAddress(), obj);
+      }
+    });
+  }
+
   public void testSendWithTimeoutReply() {
     String address = "some-address";
     eb.sendWithTimeout(address, "foo", 500, new Handler<AsyncResult<Message<String>>>() {
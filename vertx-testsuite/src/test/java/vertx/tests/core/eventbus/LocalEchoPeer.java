@@ -71,6 +71,32 @@ public class LocalEchoPeer extends EventBusAppBase {
     echoInitialise();
   }
 
+  public void testEchoCodecInitialise() {
+    if (!isLocal()) {
+      // Clustered peers have their own event bus, so need their own codec
+      eb.registerCodec(Point.class, new Point.Codec());
+    }
+    echoInitialise();
+  }
+
+  public void testForwardJsonInitialise() {
+    final String address = UUID.randomUUID().toString();
+    vertx.sharedData().getMap("echoaddress").put("echoaddress", address);
+    eb.registerHandler(address, new Handler<Message>() {
+      public void handle(Message msg) {
+        tu.checkThread();
+        eb.unregisterHandler(address, this);
+        // Passed on without reading the body
+        eb.forward("forwarded-" + address, msg);
+      }
+    }, new AsyncResultHandler<Void>() {
+      public void handle(AsyncResult<Void> event) {
+        tu.azzert(event.succeeded());
+        tu.testComplete();
+      }
+    });
+  }
+
   public void testEchoBufferInitialise() {
     echoInitialise();
   }
@@ -22,6 +22,7 @@ import org.vertx.java.core.Future;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.testframework.TestUtils;
 
 import java.util.Set;
@@ -250,5 +251,57 @@ public class LocalPeer extends EventBusAppBase {
     testReplyDifferentTypeInitialise();
   }
 
+  public void testCompressionInitialise() {
+    final String address = UUID.randomUUID().toString();
+    Set<String> addresses = vertx.sharedData().getSet("addresses");
+    addresses.add(address);
+    // So the replies are compressed too
+    eb.setCompressionThreshold(1024);
+    eb.registerHandler(address, new Handler<Message<JsonObject>>() {
+          public void handle(Message<JsonObject> msg) {
+            tu.checkThread();
+            tu.azzert(msg.body().encode().equals(data.get("json")));
+            eb.unregisterHandler(address, this);
+            msg.reply(msg.body());
+          }
+        }, new AsyncResultHandler<Void>() {
+      public void handle(AsyncResult<Void> event) {
+        if (event.succeeded()) {
+          tu.testComplete();
+        } else {
+          tu.azzert(false, "Failed to register");
+        }
+      }
+    }
+    );
+  }
 
+  public void testPriorityInitialise() {
+    testReplyInitialise();
+  }
+
+  public void testSendWithKeyPeersInitialise() {
+    final String address = "some-keyed-address";
+    final String id = UUID.randomUUID().toString();
+    eb.registerHandler(address, new Handler<Message<String>>() {
+          public void handle(Message<String> msg) {
+            tu.checkThread();
+            if (msg.body().equals("done")) {
+              eb.unregisterHandler(address, this);
+              tu.testComplete();
+            } else {
+              msg.reply(id);
+            }
+          }
+        }, new AsyncResultHandler<Void>() {
+      public void handle(AsyncResult<Void> event) {
+        if (event.succeeded()) {
+          tu.testComplete();
+        } else {
+          tu.azzert(false, "Failed to register");
+        }
+      }
+    }
+    );
+  }
 }
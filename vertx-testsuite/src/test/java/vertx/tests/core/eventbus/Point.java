@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2011-2013 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package vertx.tests.core.eventbus;
+
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.eventbus.MessageCodec;
+
+/**
+ * An immutable user type sent over the event bus with its own codec
+ */
+public class Point {
+
+  final int x;
+  final int y;
+
+  public Point(int x, int y) {
+    this.x = x;
+    this.y = y;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof Point)) return false;
+    Point point = (Point) o;
+    return x == point.x && y == point.y;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * x + y;
+  }
+
+  @Override
+  public String toString() {
+    return "Point(" + x + ", " + y + ")";
+  }
+
+  public static class Codec implements MessageCodec<Point> {
+
+    public int typeId() {
+      return 1;
+    }
+
+    public void encode(Point point, Buffer buffer) {
+      buffer.appendInt(point.x);
+      buffer.appendInt(point.y);
+    }
+
+    public Point decode(Buffer buffer, int pos, int length) {
+      return new Point(buffer.getInt(pos), buffer.getInt(pos + 4));
+    }
+
+    public Point transfer(Point point) {
+      // Immutable so no need to copy
+      return point;
+    }
+  }
+}
@@ -318,6 +318,43 @@ public class TestClient extends TestClientBase {
     client.connect(1234, getEchoHandler());
   }
 
+  public void testEchoWithAcceptors() {
+    boolean found = false;
+    for (Thread thread: Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().startsWith("vert.x-acceptor-thread-")) {
+        found = true;
+      }
+    }
+    tu.azzert(found, "Server socket isn't on an acceptor");
+    final int numConnections = 20;
+    final AtomicInteger echoed = new AtomicInteger();
+    for (int i = 0; i < numConnections; i++) {
+      client.connect(1234, new AsyncResultHandler<NetSocket>() {
+        public void handle(AsyncResult<NetSocket> res) {
+          tu.checkThread();
+          tu.azzert(res.succeeded());
+          final NetSocket socket = res.result();
+          final Buffer sent = TestUtils.generateRandomBuffer(1000);
+          final Buffer received = new Buffer();
+          socket.dataHandler(new Handler<Buffer>() {
+            public void handle(Buffer buffer) {
+              tu.checkThread();
+              received.appendBuffer(buffer);
+              if (received.length() == sent.length()) {
+                tu.azzert(TestUtils.buffersEqual(sent, received));
+                socket.close();
+                if (echoed.incrementAndGet() == numConnections) {
+                  tu.testComplete();
+                }
+              }
+            }
+          });
+          socket.write(sent);
+        }
+      });
+    }
+  }
+
   public void testEchoStringDefaultEncoding() {
     echoString(null);
   }
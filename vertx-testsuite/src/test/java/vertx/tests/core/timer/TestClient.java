@@ -93,6 +93,30 @@ public class TestClient extends TestClientBase {
     }));
   }
 
+  public void testCancelMany() throws Exception {
+    final int numTimers = 10000;
+    final long[] ids = new long[numTimers];
+    for (int i = 0; i < numTimers; i++) {
+      // Long enough that none can fire before we get round to cancelling them, even on a worker
+      ids[i] = vertx.setTimer(1000 + i % 1000, new Handler<Long>() {
+        public void handle(Long timerID) {
+          tu.azzert(false, "Cancelled timer fired");
+        }
+      });
+    }
+    for (long id: ids) {
+      tu.azzert(vertx.cancelTimer(id));
+      tu.azzert(!vertx.cancelTimer(id));
+    }
+    // Give any timers which weren't properly cancelled a chance to fire
+    vertx.setTimer(2100, new Handler<Long>() {
+      public void handle(Long timerID) {
+        tu.checkThread();
+        tu.testComplete();
+      }
+    });
+  }
+
   /**
    * Test the timers fire with approximately the correct delay
    */